@@ -0,0 +1,74 @@
+package com.securepass.benchmark;
+
+import com.securepass.util.AesEncryptionUtil;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AesEncryptionBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"16", "256", "4096"})
+    private int payloadSize;
+
+    private AesEncryptionUtil aesUtil;
+    private SecretKey dataKey;
+    private String plaintext;
+    private byte[] ciphertext;
+    private List<String> plaintexts;
+    private List<byte[]> ciphertexts;
+
+    @Setup
+    public void setUp() {
+        aesUtil = BenchmarkFixtures.aesEncryptionUtil();
+        dataKey = aesUtil.newDataKey();
+
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(payloadSize);
+        for (int i = 0; i < payloadSize; i++) {
+            builder.append((char) ('!' + random.nextInt(94)));
+        }
+        plaintext = builder.toString();
+        ciphertext = aesUtil.encrypt(plaintext, dataKey);
+
+        plaintexts = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            plaintexts.add(plaintext);
+        }
+        ciphertexts = aesUtil.encryptAll(plaintexts, dataKey);
+    }
+
+    @Benchmark
+    public byte[] encrypt() {
+        return aesUtil.encrypt(plaintext, dataKey);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return aesUtil.decrypt(ciphertext, dataKey);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<byte[]> encryptAll() {
+        return aesUtil.encryptAll(plaintexts, dataKey);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<String> decryptAll() {
+        return aesUtil.decryptAll(ciphertexts, dataKey);
+    }
+}
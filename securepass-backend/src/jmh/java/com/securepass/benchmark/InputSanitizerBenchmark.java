@@ -0,0 +1,34 @@
+package com.securepass.benchmark;
+
+import com.securepass.util.InputSanitizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InputSanitizerBenchmark {
+
+    @Param({
+        "github.com",
+        "johndoe@gmail.com",
+        "<b>git</b>hub.com<script>alert(1)</script> onclick=steal() javascript:void(0)"
+    })
+    private String input;
+
+    private final InputSanitizer sanitizer = new InputSanitizer();
+
+    @Benchmark
+    public String sanitize() {
+        return sanitizer.sanitize(input);
+    }
+
+    @Benchmark
+    public boolean isValidUsername() {
+        return sanitizer.isValidUsername(input);
+    }
+}
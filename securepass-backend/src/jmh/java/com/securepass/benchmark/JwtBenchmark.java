@@ -0,0 +1,57 @@
+package com.securepass.benchmark;
+
+import com.securepass.entity.User;
+import com.securepass.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    // Holds a single entry, so alternating between two tokens misses every time
+    private JwtUtil uncachedJwtUtil;
+    private User user;
+    private String token;
+    private String[] alternatingTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkFixtures.jwtUtil(10_000);
+        uncachedJwtUtil = BenchmarkFixtures.jwtUtil(1);
+        user = BenchmarkFixtures.user(42L);
+        token = jwtUtil.generateToken(user);
+        alternatingTokens = new String[] {
+                uncachedJwtUtil.generateToken(BenchmarkFixtures.user(1L)),
+                uncachedJwtUtil.generateToken(BenchmarkFixtures.user(2L))
+        };
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validateTokenCached() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public boolean validateTokenUncached() {
+        next ^= 1;
+        return uncachedJwtUtil.validateToken(alternatingTokens[next]);
+    }
+
+    @Benchmark
+    public Long getUserIdFromToken() {
+        return jwtUtil.getUserIdFromToken(token);
+    }
+}
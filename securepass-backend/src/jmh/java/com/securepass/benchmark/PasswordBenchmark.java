@@ -0,0 +1,51 @@
+package com.securepass.benchmark;
+
+import com.securepass.config.SecurityConfig;
+import com.securepass.validation.PasswordStrengthValidator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordBenchmark {
+
+    @Param({"Str0ng!Passw0rd", "weakpassword"})
+    private String password;
+
+    private final PasswordStrengthValidator validator = new PasswordStrengthValidator();
+    private PasswordEncoder passwordEncoder;
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        // Fixed cost so results are comparable across machines
+        passwordEncoder = new SecurityConfig().passwordEncoder("bcrypt", 10, 0, BenchmarkFixtures.METER_REGISTRY);
+        encodedPassword = passwordEncoder.encode(password);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean isValid() {
+        return validator.isValid(password, null);
+    }
+
+    // BCrypt is deliberately slow; report time per hash rather than throughput
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String encode() {
+        return passwordEncoder.encode(password);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean matches() {
+        return passwordEncoder.matches(password, encodedPassword);
+    }
+}
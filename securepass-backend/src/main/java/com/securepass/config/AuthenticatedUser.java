@@ -0,0 +1,8 @@
+package com.securepass.config;
+
+/**
+ * Principal stored in the security context for JWT-authenticated requests.
+ * Built from verified token claims, so no User entity is loaded per request.
+ */
+public record AuthenticatedUser(Long id, String username) {
+}
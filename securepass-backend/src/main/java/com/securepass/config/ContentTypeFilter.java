@@ -1,5 +1,7 @@
 package com.securepass.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,16 +14,41 @@ import java.io.IOException;
 
 /**
  * Filter to enforce Content-Type: application/json for POST, PUT, PATCH requests
+ * (NDJSON and CSV are additionally accepted by the streaming import endpoint)
  */
 @Slf4j
 @Component
 public class ContentTypeFilter extends OncePerRequestFilter {
 
+    private final Timer filterTimer;
+
+    public ContentTypeFilter(MeterRegistry meterRegistry) {
+        this.filterTimer = FilterMetrics.timer(meterRegistry, "ContentTypeFilter");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                      HttpServletResponse response, 
                                      FilterChain filterChain) throws ServletException, IOException {
-        
+
+        // Time only this filter's own work, not the rest of the chain
+        Timer.Sample sample = Timer.start();
+        boolean proceed;
+        try {
+            proceed = checkContentType(request, response);
+        } finally {
+            sample.stop(filterTimer);
+        }
+
+        if (proceed) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * @return false if the request was rejected and the response already written
+     */
+    private boolean checkContentType(HttpServletRequest request, HttpServletResponse response) throws IOException {
         String method = request.getMethod();
         String contentType = request.getContentType();
         
@@ -34,7 +61,7 @@ public class ContentTypeFilter extends OncePerRequestFilter {
                 response.setStatus(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
                 response.setContentType("application/json;charset=UTF-8");
                 response.getWriter().write("{\"error\":\"Unsupported Media Type\",\"message\":\"Content-Type must be application/json\"}");
-                return;
+                return false;
             }
             
             // Validate Content-Type is application/json
@@ -42,20 +69,28 @@ public class ContentTypeFilter extends OncePerRequestFilter {
             // Allow application/json and application/json;charset=UTF-8
             // Reject other content types (except multipart which is handled separately)
             if (!lowerContentType.startsWith("application/json") && 
-                !lowerContentType.startsWith("multipart/")) {
+                !lowerContentType.startsWith("multipart/") &&
+                !isStreamingImport(request, lowerContentType)) {
                 log.warn("Rejected request with invalid Content-Type: {} for method: {} at path: {}", 
                         contentType, method, request.getRequestURI());
                 response.setStatus(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
                 response.setContentType("application/json;charset=UTF-8");
                 response.getWriter().write("{\"error\":\"Unsupported Media Type\",\"message\":\"Content-Type must be application/json\"}");
-                return;
+                return false;
             }
         }
         
         // Always set response Content-Type to application/json
         response.setContentType("application/json;charset=UTF-8");
-        
-        filterChain.doFilter(request, response);
+        return true;
+    }
+
+    /**
+     * The streaming import endpoint also accepts NDJSON and CSV bodies
+     */
+    private boolean isStreamingImport(HttpServletRequest request, String lowerContentType) {
+        return "/vault/import".equals(request.getRequestURI()) &&
+               (lowerContentType.startsWith("application/x-ndjson") || lowerContentType.startsWith("text/csv"));
     }
 }
 
@@ -0,0 +1,23 @@
+package com.securepass.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Shared meter definitions for the custom servlet filters
+ */
+final class FilterMetrics {
+
+    private FilterMetrics() {
+    }
+
+    /**
+     * Timer for a filter's own processing time, excluding the downstream chain
+     */
+    static Timer timer(MeterRegistry meterRegistry, String filterName) {
+        return Timer.builder("securepass.filter")
+                .description("Time spent inside a custom filter, excluding the rest of the chain")
+                .tag("filter", filterName)
+                .register(meterRegistry);
+    }
+}
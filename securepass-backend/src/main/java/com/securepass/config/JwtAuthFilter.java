@@ -1,12 +1,14 @@
 package com.securepass.config;
 
-import com.securepass.repository.UserRepository;
+import com.securepass.service.UserExistenceCache;
 import com.securepass.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,32 +20,39 @@ import java.io.IOException;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
+    private final Timer filterTimer;
+
+    public JwtAuthFilter(JwtUtil jwtUtil, UserExistenceCache userExistenceCache, MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.userExistenceCache = userExistenceCache;
+        this.filterTimer = FilterMetrics.timer(meterRegistry, "JwtAuthFilter");
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
+        // Time only this filter's own work, not the rest of the chain
+        Timer.Sample sample = Timer.start();
         final String authHeader = request.getHeader("Authorization");
 
         try {
             if (authHeader != null && authHeader.startsWith("Bearer ") && authHeader.length() > 7) {
                 String token = authHeader.substring(7); // Remove "Bearer "
 
-                if (jwtUtil.validateToken(token)) {
-                    Long userId = jwtUtil.getUserIdFromToken(token);
+                Claims claims = jwtUtil.verifyToken(token);
+                if (claims != null) {
+                    Long userId = claims.get("userId", Long.class);
 
                     if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                        var user = userRepository.findById(userId).orElse(null);
-
-                        if (user != null) {
+                        if (userExistenceCache.exists(userId)) {
                             UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                    user, null, null
+                                    new AuthenticatedUser(userId, claims.getSubject()), null, null
                             );
                             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                             SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -57,6 +66,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             }
 
         } catch (Exception e) {
+            sample.stop(filterTimer);
             log.error("JWT processing error: {}", e.getMessage(), e);
 
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -65,6 +75,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             return;
         }
 
+        sample.stop(filterTimer);
         filterChain.doFilter(request, response);
     }
 }
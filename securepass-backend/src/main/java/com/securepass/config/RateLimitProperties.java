@@ -0,0 +1,48 @@
+package com.securepass.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limit policies, bound from app.rate-limit in application.yml
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Cap on tracked keys per policy. When full, the tenth of keys with the fullest buckets is dropped.
+     */
+    private int maxTrackedKeys = 100_000;
+
+    /**
+     * How often buckets that have fully refilled are dropped.
+     */
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    private List<Policy> policies = new ArrayList<>();
+
+    @Data
+    public static class Policy {
+        private String name;
+        private String path;               // Ant-style pattern, e.g. /auth/login or /vault/**
+        private String method;             // null or empty matches any method
+        private KeyType key = KeyType.IP;
+        private int capacity;              // Requests allowed per period (also the burst size)
+        private Duration period = Duration.ofMinutes(1);
+        private String message = "Too many requests. Please try again later.";
+    }
+
+    public enum KeyType {
+        /** Client IP, honouring X-Forwarded-For / X-Real-IP */
+        IP,
+        /** The "username" field of a JSON request body, for login/register style endpoints */
+        USERNAME
+    }
+}
@@ -1,60 +1,162 @@
 package com.securepass.config;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
 public class RateLimitingFilter extends OncePerRequestFilter {
 
-    private static final int MAX_REQUESTS_PER_MINUTE = 5;
-    private static final long TIME_WINDOW_MS = 60_000; // 1 minute
+    // Only small bodies are inspected for a username; login payloads are far below this
+    private static final int MAX_INSPECTED_BODY_BYTES = 8 * 1024;
+    // Bucket for requests whose username cannot be read; usernames are trimmed, so none can start with a space
+    private static final String UNKNOWN_USERNAME_KEY = " unknown";
 
-    private final Map<String, RequestCounter> requestCounts = new ConcurrentHashMap<>();
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<PolicyLimiter> limiters = new ArrayList<>();
+    private final MeterRegistry meterRegistry;
+    private final Timer filterTimer;
+
+    public RateLimitingFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.filterTimer = FilterMetrics.timer(meterRegistry, "RateLimitingFilter");
+    }
+
+    @PostConstruct
+    public void init() {
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            Counter rejections = Counter.builder("securepass.ratelimit.rejections")
+                    .description("Requests rejected with 429")
+                    .tag("policy", policy.getName())
+                    .register(meterRegistry);
+            limiters.add(new PolicyLimiter(policy, new TokenBucketLimiter(
+                    policy.getCapacity(), policy.getPeriod(),
+                    properties.getMaxTrackedKeys(), properties.getSweepInterval()), rejections));
+            log.info("🚦 Rate limit policy '{}': {} {} -> {} per {} by {}", policy.getName(),
+                    policy.getMethod() == null ? "*" : policy.getMethod(), policy.getPath(),
+                    policy.getCapacity(), policy.getPeriod(), policy.getKey());
+        }
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
-        
-        // Only apply rate limiting to login endpoint
-        if (request.getRequestURI().equals("/auth/login") && 
-            "POST".equalsIgnoreCase(request.getMethod())) {
-            
-            String clientIp = getClientIp(request);
-            RequestCounter counter = requestCounts.computeIfAbsent(clientIp, k -> new RequestCounter());
-            
-            long now = System.currentTimeMillis();
-            
-            // Reset counter if time window has passed
-            if (now - counter.getLastReset() > TIME_WINDOW_MS) {
-                counter.reset(now);
+
+        // Time only this filter's own work, not the rest of the chain
+        Timer.Sample sample = Timer.start();
+        HttpServletRequest permitted;
+        try {
+            permitted = applyLimits(request, response);
+        } finally {
+            sample.stop(filterTimer);
+        }
+
+        if (permitted != null) {
+            filterChain.doFilter(permitted, response);
+        }
+    }
+
+    /**
+     * @return the request to continue the chain with, or null if it was rejected and the response already written
+     */
+    private HttpServletRequest applyLimits(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpServletRequest currentRequest = request;
+        String username = null;
+        boolean bodyInspected = false;
+
+        for (PolicyLimiter limiter : limiters) {
+            RateLimitProperties.Policy policy = limiter.policy();
+            if (!matches(policy, request)) {
+                continue;
+            }
+
+            String key;
+            if (policy.getKey() == RateLimitProperties.KeyType.USERNAME) {
+                if (!bodyInspected) {
+                    BodyPrefixRequest wrapped = new BodyPrefixRequest(request);
+                    currentRequest = wrapped;
+                    username = extractUsername(wrapped);
+                    bodyInspected = true;
+                }
+                // An oversized or malformed body must not skip the per-account limit: all of them share one bucket
+                key = username != null ? username : UNKNOWN_USERNAME_KEY;
+            } else {
+                key = getClientIp(request);
             }
-            
-            // Check if limit exceeded
-            if (counter.getCount().get() >= MAX_REQUESTS_PER_MINUTE) {
-                log.warn("Rate limit exceeded for IP: {}", clientIp);
+            if (key == null) {
+                continue;
+            }
+
+            long waitNanos = limiter.limiter().tryAcquire(key);
+            if (waitNanos > 0) {
+                limiter.rejections().increment();
+                log.warn("Rate limit '{}' exceeded for {}: {}", policy.getName(), policy.getKey(), key);
                 response.setStatus(429); // HTTP 429 Too Many Requests
+                response.setHeader("Retry-After", String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1)));
                 response.setContentType("application/json;charset=UTF-8");
-                response.getWriter().write("{\"error\":\"Too Many Requests\",\"message\":\"Too many login attempts. Please try again later.\"}");
-                return;
+                response.getWriter().write(objectMapper.writeValueAsString(
+                        Map.of("error", "Too Many Requests", "message", policy.getMessage())));
+                return null;
             }
-            
-            // Increment counter
-            counter.getCount().incrementAndGet();
         }
-        
-        filterChain.doFilter(request, response);
+
+        return currentRequest;
+    }
+
+    private boolean matches(RateLimitProperties.Policy policy, HttpServletRequest request) {
+        String method = policy.getMethod();
+        if (method != null && !method.isEmpty() && !method.equalsIgnoreCase(request.getMethod())) {
+            return false;
+        }
+        return pathMatcher.match(policy.getPath(), request.getRequestURI());
+    }
+
+    private String extractUsername(BodyPrefixRequest request) {
+        if (!request.isComplete()) {
+            return null;
+        }
+        try {
+            JsonNode username = objectMapper.readTree(request.prefix).get("username");
+            if (username == null || !username.isTextual()) {
+                return null;
+            }
+            String normalized = username.asText().trim().toLowerCase(Locale.ROOT);
+            return normalized.isEmpty() ? null : normalized;
+        } catch (IOException e) {
+            // Malformed JSON is rejected later by request binding
+            return null;
+        }
     }
 
     private String getClientIp(HttpServletRequest request) {
@@ -69,22 +171,66 @@ public class RateLimitingFilter extends OncePerRequestFilter {
         return request.getRemoteAddr();
     }
 
-    private static class RequestCounter {
-        private final AtomicInteger count = new AtomicInteger(0);
-        private long lastReset = System.currentTimeMillis();
+    private record PolicyLimiter(RateLimitProperties.Policy policy, TokenBucketLimiter limiter, Counter rejections) {
+    }
+
+    /**
+     * Reads up to MAX_INSPECTED_BODY_BYTES of the body up front and replays them,
+     * followed by the rest of the original stream, to the rest of the chain.
+     */
+    private static class BodyPrefixRequest extends HttpServletRequestWrapper {
+        private final byte[] prefix;
+        private final ServletInputStream original;
+        private ServletInputStream replay;
 
-        public AtomicInteger getCount() {
-            return count;
+        BodyPrefixRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.original = request.getInputStream();
+            this.prefix = original.readNBytes(MAX_INSPECTED_BODY_BYTES + 1);
         }
 
-        public long getLastReset() {
-            return lastReset;
+        boolean isComplete() {
+            return prefix.length <= MAX_INSPECTED_BODY_BYTES;
         }
 
-        public void reset(long now) {
-            count.set(0);
-            lastReset = now;
+        @Override
+        public ServletInputStream getInputStream() {
+            if (replay == null) {
+                replay = new ServletInputStream() {
+                    private int position;
+
+                    @Override
+                    public int read() throws IOException {
+                        if (position < prefix.length) {
+                            return prefix[position++] & 0xFF;
+                        }
+                        return original.read();
+                    }
+
+                    @Override
+                    public boolean isFinished() {
+                        return position >= prefix.length && original.isFinished();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return position < prefix.length || original.isReady();
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener readListener) {
+                        original.setReadListener(readListener);
+                    }
+                };
+            }
+            return replay;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
         }
     }
 }
-
@@ -1,15 +1,117 @@
 package com.securepass.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
 @Configuration
 public class SecurityConfig {
 
+    // Never calibrate below the previous fixed BCrypt cost, nor into multi-second hashes
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+
+    /**
+     * Delegating encoder: new hashes are stored as {id}hash using the configured algorithm,
+     * while any supported algorithm still verifies. Legacy hashes without an {id} prefix are
+     * plain BCrypt and are reported by upgradeEncoding so they are rehashed on next login.
+     *
+     * @param algorithm   id of the algorithm for new hashes (bcrypt or pbkdf2)
+     * @param strength    fixed BCrypt cost, or 0 to calibrate against targetMillis at startup
+     * @param targetMillis hash time the calibration aims for
+     * @param meterRegistry registry for the encode/matches timers
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.security.password-hash.algorithm:bcrypt}") String algorithm,
+            @Value("${app.security.password-hash.bcrypt-strength:0}") int strength,
+            @Value("${app.security.password-hash.target-millis:250}") long targetMillis,
+            MeterRegistry meterRegistry) {
+
+        int bcryptStrength = strength > 0 ? strength : calibrateBCryptStrength(targetMillis);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Unsupported password hash algorithm: " + algorithm + " (use bcrypt or pbkdf2)");
+        }
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        log.info("🔑 Password hashing: {} (BCrypt strength {})", algorithm, bcryptStrength);
+        return new TimedPasswordEncoder(encoder, meterRegistry);
+    }
+
+    /**
+     * Picks the BCrypt cost whose hash time is closest to, without exceeding, the target.
+     * Each cost step doubles the work, so one timed hash at the minimum cost is enough to extrapolate.
+     */
+    private static int calibrateBCryptStrength(long targetMillis) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_BCRYPT_STRENGTH);
+        probe.encode("calibration-warmup");
+
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-probe");
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        double measuredMillis = bestNanos / 1_000_000.0;
+        int strength = MIN_BCRYPT_STRENGTH;
+        while (strength < MAX_BCRYPT_STRENGTH && measuredMillis * 2 <= targetMillis) {
+            measuredMillis *= 2;
+            strength++;
+        }
+        log.info("⏱️ Calibrated BCrypt strength {} (~{} ms per hash, target {} ms)",
+                strength, Math.round(measuredMillis), targetMillis);
+        return strength;
+    }
+
+    /**
+     * Records hash and verify time; these dominate login and registration latency by design.
+     */
+    private static final class TimedPasswordEncoder implements PasswordEncoder {
+        private final PasswordEncoder delegate;
+        private final Timer encodeTimer;
+        private final Timer matchesTimer;
+
+        TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+            this.delegate = delegate;
+            this.encodeTimer = Timer.builder("securepass.password.hash")
+                    .tag("operation", "encode")
+                    .register(meterRegistry);
+            this.matchesTimer = Timer.builder("securepass.password.hash")
+                    .tag("operation", "matches")
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return encodeTimer.record(() -> delegate.encode(rawPassword));
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return Boolean.TRUE.equals(matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return delegate.upgradeEncoding(encodedPassword);
+        }
     }
 }
@@ -0,0 +1,112 @@
+package com.securepass.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket keyed by client, implemented as GCRA: each key holds a single
+ * "theoretical arrival time" updated with compare-and-set, so there is no check-then-act race.
+ * A key whose arrival time has passed holds a full bucket and is indistinguishable from a
+ * new key, which is what lets idle keys be evicted without losing any state.
+ * <p>
+ * If the map is still full after dropping idle keys, the tenth of keys with the earliest arrival
+ * times (the fullest buckets, i.e. the least recently or least heavily used) are dropped too, so a
+ * flood of new keys never forces real clients to share a bucket; the keys being hammered have the
+ * latest arrival times and keep their state.
+ */
+final class TokenBucketLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long periodNanos;
+    private final int maxKeys;
+    private final long sweepIntervalNanos;
+
+    private static final int EVICTION_DIVISOR = 10;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepNanos;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    TokenBucketLimiter(int capacity, Duration period, int maxKeys, Duration sweepInterval) {
+        if (capacity <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalStateException("Rate limit capacity and period must be positive");
+        }
+        this.periodNanos = period.toNanos();
+        this.emissionIntervalNanos = periodNanos / capacity;
+        this.maxKeys = maxKeys;
+        this.sweepIntervalNanos = sweepInterval.toNanos();
+
+        this.nextSweepNanos = new AtomicLong(System.nanoTime() + sweepIntervalNanos);
+    }
+
+    /**
+     * Takes one token for the key.
+     *
+     * @return 0 if the request is allowed, otherwise nanoseconds until a token is available
+     */
+    long tryAcquire(String key) {
+        long now = System.nanoTime();
+        sweepIfDue(now);
+
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                sweep(now);
+                if (buckets.size() >= maxKeys) {
+                    evictFullest();
+                }
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long arrival = bucket.get();
+            long start = arrival - now > 0 ? arrival : now;
+            long next = start + emissionIntervalNanos;
+            long excess = next - now - periodNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweepNanos.get();
+        if (now - due >= 0 && nextSweepNanos.compareAndSet(due, now + sweepIntervalNanos)) {
+            sweep(now);
+        }
+    }
+
+    private void sweep(long now) {
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    // One thread evicts at a time; the others insert meanwhile, so the map may briefly exceed maxKeys
+    private void evictFullest() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long[] arrivals = buckets.values().stream().mapToLong(AtomicLong::get).toArray();
+            if (arrivals.length < maxKeys) {
+                return;
+            }
+            Arrays.sort(arrivals);
+            long threshold = arrivals[Math.max(1, arrivals.length / EVICTION_DIVISOR) - 1];
+            buckets.values().removeIf(bucket -> bucket.get() - threshold <= 0);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    int trackedKeys() {
+        return buckets.size();
+    }
+}
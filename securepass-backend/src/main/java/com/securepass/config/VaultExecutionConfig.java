@@ -0,0 +1,82 @@
+package com.securepass.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker pools for vault work that runs outside the request thread
+ */
+@Slf4j
+@Configuration
+public class VaultExecutionConfig {
+
+    @Value("${app.vault.decryption.pool-size:4}")
+    private int decryptionPoolSize;
+
+    @Value("${app.vault.decryption.queue-capacity:256}")
+    private int decryptionQueueCapacity;
+
+    @Value("${app.key-rotation.workers:2}")
+    private int keyRotationWorkers;
+
+    /**
+     * Bounded pool for parallel credential decryption. When the queue is full the
+     * submitting request thread decrypts the chunk itself instead of failing.
+     * <p>
+     * With virtual threads enabled (see the {@code virtual-threads} profile) each chunk gets its own
+     * virtual thread instead. Decryption is CPU-bound, so the pool size still caps how many chunks
+     * run at once; submitters beyond the cap wait for a slot, which is cheap on a virtual thread.
+     */
+    @Bean(name = "vaultDecryptionExecutor")
+    public Executor vaultDecryptionExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("🧵 Vault decryption on virtual threads, at most {} chunks at once", decryptionPoolSize);
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("vault-decrypt-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(decryptionPoolSize);
+            return executor;
+        }
+
+        log.info("🧵 Vault decryption pool: {} workers, queue capacity {}", decryptionPoolSize, decryptionQueueCapacity);
+        return new ThreadPoolExecutor(
+                decryptionPoolSize,
+                decryptionPoolSize,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(decryptionQueueCapacity),
+                namedDaemonThreads("vault-decrypt-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    /**
+     * Workers for the background key rotation. Kept small and separate from request handling so
+     * re-encryption can only ever use this many threads (and JDBC connections) at once.
+     */
+    @Bean(name = "keyRotationExecutor")
+    public ExecutorService keyRotationExecutor() {
+        return Executors.newFixedThreadPool(keyRotationWorkers, namedDaemonThreads("key-rotation-"));
+    }
+
+    private static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
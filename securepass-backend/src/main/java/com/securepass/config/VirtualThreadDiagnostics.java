@@ -0,0 +1,96 @@
+package com.securepass.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, typically while blocking
+ * inside a {@code synchronized} block (JDBC drivers, connection pools, SecureRandom).
+ * A pinned thread holds a carrier for the whole wait, so frequent pins erase the benefit of
+ * virtual threads. Listens to the JFR {@code jdk.VirtualThreadPinned} event in-process, so no
+ * JVM flags or recording files are needed.
+ */
+@Slf4j
+@Component
+@Profile("virtual-threads")
+public class VirtualThreadDiagnostics {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Environment environment;
+    private final Counter pinnedCount;
+    private final Timer pinnedTime;
+
+    @Value("${app.virtual-threads.pinned-threshold:20ms}")
+    private Duration pinnedThreshold;
+
+    private RecordingStream recording;
+
+    public VirtualThreadDiagnostics(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.pinnedCount = Counter.builder("securepass.virtualthreads.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .register(meterRegistry);
+        this.pinnedTime = Timer.builder("securepass.virtualthreads.pinned.duration")
+                .description("How long pinned virtual threads held their carrier")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            log.warn("⚠️ virtual-threads profile is active but this JVM is Java {}; virtual threads need Java 21+. " +
+                    "Requests keep running on the platform thread pool.", Runtime.version().feature());
+            return;
+        }
+
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(pinnedThreshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+        log.info("🧵 Virtual threads enabled; reporting pins longer than {} ms", pinnedThreshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.increment();
+        pinnedTime.record(event.getDuration());
+        log.warn("📌 Virtual thread pinned for {} ms:\n{}", event.getDuration().toMillis(), describe(event.getStackTrace()));
+    }
+
+    private static String describe(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\t(no stack trace)";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        return frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n"));
+    }
+}
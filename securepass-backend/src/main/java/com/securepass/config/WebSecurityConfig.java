@@ -50,7 +50,7 @@ public class WebSecurityConfig {
                         // Removed to avoid compatibility issues with Spring Security 6.x
                 )
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/auth/**", "/actuator/health").permitAll()
+                        .requestMatchers("/auth/**", "/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(contentTypeFilter, UsernamePasswordAuthenticationFilter.class)
@@ -75,9 +75,10 @@ public class WebSecurityConfig {
             "Accept",
             "Origin",
             "Access-Control-Request-Method",
-            "Access-Control-Request-Headers"
+            "Access-Control-Request-Headers",
+            "If-None-Match"
         ));
-        config.setExposedHeaders(Arrays.asList("Authorization", "X-Total-Count"));
+        config.setExposedHeaders(Arrays.asList("Authorization", "X-Total-Count", "ETag"));
         config.setAllowCredentials(true);
         config.setMaxAge(3600L);
 
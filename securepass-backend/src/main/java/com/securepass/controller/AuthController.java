@@ -74,6 +74,7 @@ public class AuthController {
         return userRepository.findByUsername(username)
                 .map(user -> {
                     if (passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+                        rehashIfOutdated(user, loginRequest.getPassword());
                         String token = jwtUtil.generateToken(user);
                         log.info("✅ Login successful for username: {}", username);
                         return ResponseEntity.ok(new LoginResponse(token));
@@ -91,4 +92,21 @@ public class AuthController {
                             .body(ApiResponse.error("Invalid username or password"));
                 });
     }
+
+    /**
+     * The plain password is only available at login, so hashes with an outdated algorithm
+     * or cost are upgraded here. A failure to save must not fail an otherwise valid login.
+     */
+    private void rehashIfOutdated(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        try {
+            user.setPassword(passwordEncoder.encode(rawPassword));
+            userRepository.save(user);
+            log.info("🔁 Upgraded password hash for username: {}", user.getUsername());
+        } catch (Exception e) {
+            log.error("❌ Failed to upgrade password hash for username {}: {}", user.getUsername(), e.getMessage());
+        }
+    }
 }
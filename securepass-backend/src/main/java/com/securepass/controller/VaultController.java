@@ -1,25 +1,51 @@
 package com.securepass.controller;
 
+import com.securepass.config.AuthenticatedUser;
 import com.securepass.dto.ApiResponse;
+import com.securepass.dto.CredentialFingerprint;
+import com.securepass.dto.CredentialMetadata;
+import com.securepass.dto.CredentialPageResponse;
 import com.securepass.dto.CredentialRequest;
 import com.securepass.dto.CredentialResponse;
+import com.securepass.dto.ImportResult;
+import com.securepass.dto.UpsertResult;
+import com.securepass.dto.VaultChangesResponse;
+import com.securepass.dto.VaultReuseResponse;
 import com.securepass.entity.Credential;
 import com.securepass.entity.User;
 import com.securepass.repository.CredentialRepository;
 import com.securepass.repository.UserRepository;
+import com.securepass.service.CredentialCache;
+import com.securepass.service.CredentialDecryptionService;
+import com.securepass.service.CredentialImportService;
+import com.securepass.service.DataKeyService;
+import com.securepass.service.VaultChangeService;
+import com.securepass.service.VaultStreamingService;
 import com.securepass.util.AesEncryptionUtil;
 import com.securepass.util.InputSanitizer;
-import com.securepass.util.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @RestController
@@ -27,47 +53,49 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class VaultController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_SEARCH_LENGTH = 255;
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
     private final CredentialRepository credentialRepo;
     private final UserRepository userRepo;
     private final AesEncryptionUtil aesUtil;
-    private final JwtUtil jwtUtil;
+    private final DataKeyService dataKeyService;
     private final InputSanitizer inputSanitizer;
+    private final CredentialDecryptionService decryptionService;
+    private final VaultStreamingService streamingService;
+    private final CredentialImportService importService;
+    private final VaultChangeService changeService;
+    private final CredentialCache credentialCache;
 
-    private Long getCurrentUser(HttpServletRequest request) {
-        String header = request.getHeader("Authorization");
-        if (header == null || !header.startsWith("Bearer ") || header.length() <= 7) {
+    // Identity comes from the JwtAuthFilter's authentication; the token is not parsed again here
+    private Long getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
             throw new RuntimeException("Invalid or missing Authorization header");
         }
-        String token = header.substring(7);
-        return jwtUtil.getUserIdFromToken(token);
+        return user.id();
     }
 
     @GetMapping
-    public ResponseEntity<?> getAll(HttpServletRequest request) {
-        Long userId = getCurrentUser(request);
+    public ResponseEntity<?> getAll(@RequestParam(required = false) Long after,
+                                    @RequestParam(required = false) Integer limit,
+                                    WebRequest webRequest) {
+        Long userId = getCurrentUser();
+        // The persisted version, so every instance agrees on it. It is read before the rows: a mutation
+        // committing in between only makes the ETag stale, never wrong
+        long version = userRepo.findVaultVersionById(userId);
+        if (webRequest.checkNotModified(vaultEtag(userId, version))) {
+            log.debug("Vault unchanged for user ID: {}", userId);
+            return null;
+        }
+        if (limit != null) {
+            return getPage(userId, after, limit);
+        }
         log.info("🔐 Fetching credentials for user ID: {}", userId);
 
         try {
-            List<CredentialResponse> response = credentialRepo.findByUserId(userId).stream().map(cred -> {
-                try {
-                    CredentialResponse dto = new CredentialResponse();
-                    dto.setId(cred.getId());
-                    dto.setSite(cred.getSite());
-                    dto.setUsername(cred.getUsername());
-                    dto.setPassword(aesUtil.decrypt(cred.getPassword()));
-                    return dto;
-                } catch (Exception e) {
-                    log.error("❌ Failed to decrypt credential ID {}: {}", cred.getId(), e.getMessage());
-                    // Return credential with error message instead of failing completely
-                    CredentialResponse dto = new CredentialResponse();
-                    dto.setId(cred.getId());
-                    dto.setSite(cred.getSite());
-                    dto.setUsername(cred.getUsername());
-                    dto.setPassword("[DECRYPTION_ERROR: This credential was encrypted with an old method. Please delete and re-add it.]");
-                    return dto;
-                }
-            }).collect(Collectors.toList());
-
+            List<CredentialResponse> response = decryptionService.toResponses(userId, credentialCache.findByUserId(userId, version));
             log.info("✅ Retrieved {} credentials for user ID: {}", response.size(), userId);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -77,34 +105,210 @@ public class VaultController {
         }
     }
 
+    // Strong ETag; the user id is part of it so a cached listing can never be confirmed for another account at the same version
+    private static String vaultEtag(Long userId, long version) {
+        return "\"" + userId + "-" + version + "\"";
+    }
+
+    private ResponseEntity<?> getPage(Long userId, Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid request: limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        long afterId = after == null ? 0L : after;
+        log.info("🔐 Fetching credential page for user ID: {} | after: {} | limit: {}", userId, afterId, limit);
+
+        List<Credential> page = credentialRepo.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, afterId, Limit.of(limit));
+        List<CredentialResponse> items = decryptionService.toResponses(userId, page);
+        Long nextAfter = page.size() == limit ? page.get(page.size() - 1).getId() : null;
+        return ResponseEntity.ok(new CredentialPageResponse<>(items, nextAfter));
+    }
+
+    @GetMapping("/stream")
+    public void stream(HttpServletResponse response) throws IOException {
+        Long userId = getCurrentUser();
+        log.info("🔐 Streaming credentials for user ID: {}", userId);
+
+        // Before the read-only transaction: a first use stores the new data key in its own transaction
+        SecretKey dataKey = dataKeyService.forUser(userId);
+        response.setContentType("application/json;charset=UTF-8");
+        int count = streamingService.writeJson(userId, dataKey, response.getOutputStream());
+        log.info("✅ Streamed {} credentials for user ID: {}", count, userId);
+    }
+
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "json") String format,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        VaultStreamingService.ExportFormat exportFormat;
+        try {
+            exportFormat = VaultStreamingService.ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported export format: " + format + " (use json, ndjson or csv)");
+        }
+        Long userId = getCurrentUser();
+        log.info("📤 Exporting credentials for user ID: {} | format: {} | gzip: {}", userId, exportFormat, gzip);
+        SecretKey dataKey = dataKeyService.forUser(userId);
+
+        String extension = exportFormat.name().toLowerCase(Locale.ROOT);
+        String fileName = "credentials-" + LocalDate.now() + "." + extension + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : switch (exportFormat) {
+            case JSON -> "application/json;charset=UTF-8";
+            case NDJSON -> NDJSON_MEDIA_TYPE + ";charset=UTF-8";
+            case CSV -> "text/csv;charset=UTF-8";
+        });
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+
+        OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), true) : response.getOutputStream();
+        int count = streamingService.writeExport(userId, dataKey, exportFormat, out);
+        if (out instanceof GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+        log.info("✅ Exported {} credentials for user ID: {}", count, userId);
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam long since) {
+        Long userId = getCurrentUser();
+        VaultChangeService.VaultChanges changes = changeService.changesSince(userId, since);
+        if (changes.resyncRequired()) {
+            log.info("🔄 Changes for user ID {} since version {} are no longer kept, client must resync", userId, since);
+            return ResponseEntity.status(410)
+                    .body(ApiResponse.error("Changes since version " + since + " are no longer available: sync again from since=0"));
+        }
+
+        List<CredentialResponse> changed = decryptionService.toResponses(userId, changes.changed());
+        log.info("🔄 Changes for user ID {} since version {}: {} changed, {} deleted (now at {})",
+                userId, since, changed.size(), changes.deletedIds().size(), changes.version());
+        return ResponseEntity.ok(new VaultChangesResponse(changes.version(), changed, changes.deletedIds()));
+    }
+
+    @GetMapping("/metadata")
+    public ResponseEntity<?> getMetadata() {
+        Long userId = getCurrentUser();
+        List<CredentialMetadata> response = credentialRepo.findMetadataByUserId(userId);
+        log.info("✅ Retrieved metadata for {} credentials for user ID: {}", response.size(), userId);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/reuse")
+    public ResponseEntity<?> getReuse() {
+        Long userId = getCurrentUser();
+
+        // One index query over the fingerprints; no password is decrypted
+        List<CredentialFingerprint> reused = credentialRepo.findReused(userId);
+        List<List<CredentialMetadata>> groups = new ArrayList<>();
+        List<CredentialMetadata> group = null;
+        byte[] groupFingerprint = null;
+        for (CredentialFingerprint row : reused) {
+            if (group == null || !Arrays.equals(groupFingerprint, row.getFingerprint())) {
+                group = new ArrayList<>();
+                groups.add(group);
+                groupFingerprint = row.getFingerprint();
+            }
+            group.add(new CredentialMetadata(row.getId(), row.getSite(), row.getUsername()));
+        }
+        long unchecked = credentialRepo.countByUserIdAndFingerprintIsNull(userId);
+        log.info("🔁 Reuse check for user ID {}: {} credentials in {} groups ({} not fingerprinted yet)",
+                userId, reused.size(), groups.size(), unchecked);
+        return ResponseEntity.ok(new VaultReuseResponse(groups, unchecked));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(required = false) Long after,
+                                    @RequestParam(defaultValue = "50") int limit) {
+        String term = q.trim();
+        if (term.isEmpty() || term.length() > MAX_SEARCH_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid request: q must be between 1 and " + MAX_SEARCH_LENGTH + " characters"));
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid request: limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        Long userId = getCurrentUser();
+        long afterId = after == null ? 0L : after;
+
+        // Metadata only: search never touches the encrypted password column
+        String pattern = "%" + escapeLike(term.toLowerCase(Locale.ROOT)) + "%";
+        List<CredentialMetadata> page = credentialRepo.searchMetadata(userId, afterId, pattern, Limit.of(limit));
+        Long nextAfter = page.size() == limit ? page.get(page.size() - 1).getId() : null;
+        log.info("🔍 Search for user ID {} returned {} credentials", userId, page.size());
+        return ResponseEntity.ok(new CredentialPageResponse<>(page, nextAfter));
+    }
+
+    // The search term is matched literally, so LIKE wildcards typed by the user are escaped
+    private static String escapeLike(String term) {
+        StringBuilder escaped = new StringBuilder(term.length() + 8);
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    @GetMapping("/{id}/secret")
+    public ResponseEntity<?> getSecret(@PathVariable Long id) {
+        Long userId = getCurrentUser();
+
+        return credentialRepo.findByIdAndUserId(id, userId)
+                .<ResponseEntity<?>>map(cred -> {
+                    log.info("🔓 Revealed credential ID {} for user ID {}", id, userId);
+                    return ResponseEntity.ok(decryptionService.toResponse(userId, cred));
+                })
+                .orElseGet(() -> {
+                    log.warn("❌ Reveal failed: Credential ID {} not found or unauthorized for user ID {}", id, userId);
+                    return ResponseEntity.status(404)
+                            .body(ApiResponse.error("Credential not found or unauthorized"));
+                });
+    }
+
+    @GetMapping("/secrets")
+    public ResponseEntity<?> getSecrets(@RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid request: between 1 and " + MAX_PAGE_SIZE + " ids are required"));
+        }
+        Long userId = getCurrentUser();
+
+        // Ids owned by other users are silently left out
+        List<CredentialResponse> response = decryptionService.toResponses(userId, credentialRepo.findByIdInAndUserId(ids, userId));
+        log.info("🔓 Revealed {} of {} requested credentials for user ID {}", response.size(), ids.size(), userId);
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping
-    public ResponseEntity<?> add(@Valid @RequestBody CredentialRequest req, BindingResult bindingResult, HttpServletRequest request) {
+    public ResponseEntity<?> add(@Valid @RequestBody CredentialRequest req, BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Invalid request: " + bindingResult.getFieldError().getDefaultMessage()));
         }
-        Long userId = getCurrentUser(request);
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> {
-                    log.warn("❌ Failed to add credential: user ID {} not found", userId);
-                    return new RuntimeException("User not found");
-                });
+        Long userId = getCurrentUser();
+        // Existence was confirmed during authentication; only the foreign key is needed
+        User user = userRepo.getReferenceById(userId);
 
         // Sanitize and trim inputs
+        SecretKey dataKey = dataKeyService.forUser(userId);
         Credential cred = Credential.builder()
                 .site(inputSanitizer.trim(inputSanitizer.sanitize(req.getSite())))
                 .username(inputSanitizer.trim(inputSanitizer.sanitize(req.getUsername())))
-                .password(aesUtil.encrypt(req.getPassword())) // Don't sanitize password - it may contain special chars
+                .password(aesUtil.encrypt(req.getPassword(), dataKey)) // Don't sanitize password - it may contain special chars
+                .fingerprint(aesUtil.fingerprint(req.getPassword(), dataKey))
                 .user(user)
                 .build();
 
-        credentialRepo.save(cred);
+        changeService.save(userId, cred);
         log.info("✅ Saved new credential for user ID {} | Site: {}", userId, req.getSite());
         return ResponseEntity.ok(ApiResponse.success("Credential saved"));
     }
 
     @PostMapping("/batch")
-    public ResponseEntity<?> addMultiple(@Valid @RequestBody List<CredentialRequest> reqs, HttpServletRequest request) {
+    public ResponseEntity<?> addMultiple(@Valid @RequestBody List<CredentialRequest> reqs) {
         // Validate all requests
         for (CredentialRequest req : reqs) {
             if (req.getSite() == null || req.getSite().trim().isEmpty() ||
@@ -113,35 +317,61 @@ public class VaultController {
                         .body(ApiResponse.error("Invalid request: All credentials must have site and password"));
             }
         }
-        Long userId = getCurrentUser(request);
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> {
-                    log.warn("❌ Failed to batch save credentials: user ID {} not found", userId);
-                    return new RuntimeException("User not found");
-                });
+        Long userId = getCurrentUser();
+
+        // Don't sanitize passwords - they may contain special chars
+        SecretKey dataKey = dataKeyService.forUser(userId);
+        List<String> passwords = reqs.stream().map(CredentialRequest::getPassword).toList();
+        List<byte[]> encryptedPasswords = aesUtil.encryptAll(passwords, dataKey);
+        List<byte[]> fingerprints = aesUtil.fingerprintAll(passwords, dataKey);
 
         // Sanitize and trim inputs
-        List<Credential> credentials = reqs.stream().map(req -> Credential.builder()
-                .site(inputSanitizer.trim(inputSanitizer.sanitize(req.getSite())))
-                .username(inputSanitizer.trim(inputSanitizer.sanitize(req.getUsername())))
-                .password(aesUtil.encrypt(req.getPassword())) // Don't sanitize password - it may contain special chars
-                .user(user)
-                .build()
-        ).toList();
+        List<Credential> credentials = new ArrayList<>(reqs.size());
+        for (int i = 0; i < reqs.size(); i++) {
+            CredentialRequest req = reqs.get(i);
+            credentials.add(Credential.builder()
+                    .site(inputSanitizer.trim(inputSanitizer.sanitize(req.getSite())))
+                    .username(inputSanitizer.trim(inputSanitizer.sanitize(req.getUsername())))
+                    .password(encryptedPasswords.get(i))
+                    .fingerprint(fingerprints.get(i))
+                    .build());
+        }
 
-        credentialRepo.saveAll(credentials);
-        log.info("✅ Batch saved {} credentials for user ID: {}", credentials.size(), userId);
-        return ResponseEntity.ok(ApiResponse.success("Saved " + credentials.size() + " credentials"));
+        // Keyed on site and username, so sending the same export again does not duplicate anything
+        UpsertResult result = changeService.upsertAll(userId, credentials);
+        log.info("✅ Batch saved {} credentials for user ID {}: {} inserted, {} updated, {} skipped",
+                credentials.size(), userId, result.getInserted(), result.getUpdated(), result.getSkipped());
+        return ResponseEntity.ok(ApiResponse.success("Saved " + credentials.size() + " credentials: " + result.getInserted()
+                + " added, " + result.getUpdated() + " updated, " + result.getSkipped() + " unchanged", result));
+    }
+
+    @PostMapping(value = "/import", consumes = {NDJSON_MEDIA_TYPE, "text/csv"})
+    public ResponseEntity<?> importStream(HttpServletRequest request) throws IOException {
+        Long userId = getCurrentUser();
+        String contentType = request.getContentType().toLowerCase(Locale.ROOT);
+        log.info("📥 Streaming import for user ID {} | Content-Type: {}", userId, contentType);
+
+        ImportResult result = contentType.startsWith("text/csv")
+                ? importService.importCsv(userId, request.getInputStream())
+                : importService.importNdjson(userId, request.getInputStream());
+        if (result.isTruncated()) {
+            return ResponseEntity.status(413).body(new ApiResponse(
+                    "Upload exceeds the import size limit: imported " + result.getImported() + " credentials from the rows"
+                            + " before it, " + result.getFailed() + " rejected; import the rest as a separate file", result));
+        }
+        return ResponseEntity.ok(ApiResponse.success(
+                "Imported " + result.getImported() + " credentials (" + result.getInserted() + " added, " + result.getUpdated()
+                        + " updated, " + result.getSkipped() + " unchanged), " + result.getFailed() + " rejected", result));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> delete(@PathVariable Long id, HttpServletRequest request) {
-        Long userId = getCurrentUser(request);
+    public ResponseEntity<?> delete(@PathVariable Long id) {
+        Long userId = getCurrentUser();
 
         return credentialRepo.findById(id)
                 .filter(c -> c.getUser().getId().equals(userId))
                 .map(cred -> {
-                    credentialRepo.delete(cred);
+                    changeService.delete(userId, cred);
                     log.info("🗑️ Deleted credential ID {} for user ID {}", id, userId);
                     return ResponseEntity.ok(ApiResponse.success("Deleted"));
                 })
@@ -153,12 +383,12 @@ public class VaultController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> update(@PathVariable Long id, @Valid @RequestBody CredentialRequest req, BindingResult bindingResult, HttpServletRequest request) {
+    public ResponseEntity<?> update(@PathVariable Long id, @Valid @RequestBody CredentialRequest req, BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Invalid request: " + bindingResult.getFieldError().getDefaultMessage()));
         }
-        Long userId = getCurrentUser(request);
+        Long userId = getCurrentUser();
 
         return credentialRepo.findById(id)
                 .filter(c -> c.getUser().getId().equals(userId))
@@ -166,8 +396,10 @@ public class VaultController {
                     // Sanitize and trim inputs
                     cred.setSite(inputSanitizer.trim(inputSanitizer.sanitize(req.getSite())));
                     cred.setUsername(inputSanitizer.trim(inputSanitizer.sanitize(req.getUsername())));
-                    cred.setPassword(aesUtil.encrypt(req.getPassword())); // Don't sanitize password - it may contain special chars
-                    credentialRepo.save(cred);
+                    SecretKey dataKey = dataKeyService.forUser(userId);
+                    cred.setPassword(aesUtil.encrypt(req.getPassword(), dataKey)); // Don't sanitize password - it may contain special chars
+                    cred.setFingerprint(aesUtil.fingerprint(req.getPassword(), dataKey));
+                    changeService.save(userId, cred);
                     log.info("✏️ Updated credential ID {} for user ID {}", id, userId);
                     return ResponseEntity.ok(ApiResponse.success("Updated"));
                 })
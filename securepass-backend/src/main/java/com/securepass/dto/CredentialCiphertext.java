@@ -0,0 +1,17 @@
+package com.securepass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Id, owner and stored (encrypted) password of a credential; built directly by a JPQL projection
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CredentialCiphertext {
+    private Long id;
+    private Long userId;
+    private byte[] password;
+}
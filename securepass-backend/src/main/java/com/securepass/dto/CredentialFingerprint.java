@@ -0,0 +1,18 @@
+package com.securepass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Credential listing entry with its password fingerprint instead of the password; built directly by a JPQL projection
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CredentialFingerprint {
+    private Long id;
+    private String site;
+    private String username;
+    private byte[] fingerprint;
+}
@@ -0,0 +1,17 @@
+package com.securepass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Credential listing entry without the password; built directly by a JPQL projection
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CredentialMetadata {
+    private Long id;
+    private String site;
+    private String username;
+}
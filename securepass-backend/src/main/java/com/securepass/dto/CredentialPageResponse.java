@@ -0,0 +1,16 @@
+package com.securepass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One keyset page of credentials or credential metadata
+ */
+@Data
+@AllArgsConstructor
+public class CredentialPageResponse<T> {
+    private List<T> items;
+    private Long nextAfter;  // Pass as ?after= to fetch the next page; null on the last page
+}
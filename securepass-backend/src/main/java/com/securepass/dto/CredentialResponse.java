@@ -1,5 +1,6 @@
 package com.securepass.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 @Data
@@ -8,4 +9,7 @@ public class CredentialResponse {
     private String site;
     private String username;
     private String password;
+    // Only set when app.breached-passwords.check-credentials is on
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean breached;
 }
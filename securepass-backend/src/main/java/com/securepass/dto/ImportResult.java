@@ -0,0 +1,28 @@
+package com.securepass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ImportResult {
+    private int imported;  // Accepted rows: inserted + updated + skipped
+    private int inserted;
+    private int updated;
+    private int skipped;   // Site and username already stored with the same password
+    private int failed;
+    private List<RowError> errors = new ArrayList<>();  // Capped; see failed for the full count
+    private boolean errorsTruncated;
+    private boolean truncated;  // Stopped at app.vault.import.max-bytes; the rest of the upload was not read
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;  // 1-based line (NDJSON) or data record (CSV) number
+        private String message;
+    }
+}
@@ -1,5 +1,6 @@
 package com.securepass.dto;
 
+import com.securepass.validation.NotBreached;
 import com.securepass.validation.PasswordStrength;
 import com.securepass.validation.ValidUsername;
 import jakarta.validation.constraints.NotBlank;
@@ -16,6 +17,7 @@ public class RegisterRequest {
     @NotBlank(message = "Password is required")
     @Size(min = 8, max = 200, message = "Password must be at least 8 characters")
     @PasswordStrength
+    @NotBreached
     private String password;
 }
 
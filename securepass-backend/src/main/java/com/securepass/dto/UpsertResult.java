@@ -0,0 +1,17 @@
+package com.securepass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a batch save keyed on site and username
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpsertResult {
+    private int inserted;  // New site/username pairs
+    private int updated;   // Existing entries whose password changed
+    private int skipped;   // Existing entries with the same password, or repeated later in the same batch
+}
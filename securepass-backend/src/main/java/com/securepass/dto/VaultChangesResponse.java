@@ -0,0 +1,17 @@
+package com.securepass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Delta between a client's vault version and the current one
+ */
+@Data
+@AllArgsConstructor
+public class VaultChangesResponse {
+    private long version;                    // Pass as ?since= on the next call
+    private List<CredentialResponse> changed; // Inserted or updated since the requested version
+    private List<Long> deleted;              // Ids of credentials deleted since the requested version
+}
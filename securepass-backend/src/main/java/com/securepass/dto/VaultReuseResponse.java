@@ -0,0 +1,16 @@
+package com.securepass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Credentials that share a password, found by fingerprint without decrypting anything
+ */
+@Data
+@AllArgsConstructor
+public class VaultReuseResponse {
+    private List<List<CredentialMetadata>> groups; // Each group shares one password
+    private long unchecked;                        // Credentials without a fingerprint yet, not part of any group
+}
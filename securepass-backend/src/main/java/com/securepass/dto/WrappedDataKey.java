@@ -0,0 +1,16 @@
+package com.securepass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user's data key as stored, encrypted with a master key; built directly by a JPQL projection
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WrappedDataKey {
+    private Long userId;
+    private String dataKey;
+}
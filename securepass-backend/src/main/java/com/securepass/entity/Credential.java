@@ -1,12 +1,22 @@
 package com.securepass.entity;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
-@Table(name = "t_credential", indexes = {
+@Table(name = "t_credential", uniqueConstraints = {
+    // One entry per site and account; batch saves and imports merge into it, see VaultChangeService#upsertAll
+    @UniqueConstraint(name = "uk_credential_user_site_username", columnNames = {"user_id", "site", "username"})
+}, indexes = {
     @Index(name = "idx_user_id", columnList = "user_id"),
     @Index(name = "idx_site", columnList = "site"),
-    @Index(name = "idx_user_site", columnList = "user_id, site")
+    @Index(name = "idx_user_site", columnList = "user_id, site"),
+    @Index(name = "idx_user_id_id", columnList = "user_id, id"),
+    @Index(name = "idx_user_vault_version", columnList = "user_id, vault_version"),
+    @Index(name = "idx_user_fingerprint", columnList = "user_id, fingerprint")
 })
 @Getter
 @Setter
@@ -15,8 +25,13 @@ import lombok.*;
 @Builder
 public class Credential {
 
+    // Must match the INCREMENT BY of t_credential_seq
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled sequence: one nextval per ID_ALLOCATION_SIZE inserts, and unlike IDENTITY it keeps JDBC insert batching enabled
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "credential_seq")
+    @SequenceGenerator(name = "credential_seq", sequenceName = "t_credential_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 255)
@@ -25,10 +40,24 @@ public class Credential {
     @Column(length = 255)
     private String username;  // e.g., johndoe@gmail.com
 
-    @Column(nullable = false, length = 1000)
-    private String password;  // AES-encrypted password
+    // Format byte + IV + AES-GCM ciphertext, see AesEncryptionUtil; bytea on PostgreSQL
+    @Column(nullable = false, length = 2048)
+    private byte[] password;
+
+    // AesEncryptionUtil#fingerprint of the plaintext, for GET /vault/reuse; null until backfilled
+    @Column(length = 32)
+    private byte[] fingerprint;
 
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+
+    // User's vault version at the last insert or update; drives GET /vault/changes
+    @ColumnDefault("1")
+    @Column(name = "vault_version", nullable = false)
+    private long vaultVersion;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
 }
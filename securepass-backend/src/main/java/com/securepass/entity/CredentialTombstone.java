@@ -0,0 +1,41 @@
+package com.securepass.entity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Record of a deleted credential, so delta sync clients learn about deletes
+ */
+@Entity
+@Table(name = "t_credential_tombstone", indexes = {
+    @Index(name = "idx_tombstone_user_vault_version", columnList = "user_id, vault_version")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CredentialTombstone {
+
+    // Must match the INCREMENT BY of t_credential_tombstone_seq
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "credential_tombstone_seq")
+    @SequenceGenerator(name = "credential_tombstone_seq", sequenceName = "t_credential_tombstone_seq", allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "credential_id", nullable = false)
+    private Long credentialId;
+
+    // User's vault version of the delete
+    @Column(name = "vault_version", nullable = false)
+    private long vaultVersion;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+}
@@ -0,0 +1,51 @@
+package com.securepass.entity;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+/**
+ * Progress of the background rotation to one target master key, so the job resumes after a restart
+ */
+@Entity
+@Table(name = "t_key_rotation_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class KeyRotationCheckpoint {
+
+    @Id
+    @Column(name = "target_key_id")
+    private Integer targetKeyId;
+
+    // Every user with an id up to this one has had their data key re-wrapped
+    @ColumnDefault("0")
+    @Column(name = "last_user_id", nullable = false)
+    private long lastUserId;
+
+    // Every credential with an id up to this one has been visited
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    @Column(nullable = false)
+    private long scanned;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long rewrapped;
+
+    @Column(nullable = false)
+    private long reencrypted;
+
+    @Column(nullable = false)
+    private long failed;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
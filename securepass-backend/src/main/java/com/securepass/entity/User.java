@@ -1,8 +1,10 @@
 package com.securepass.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.securepass.service.UserCacheEvictionListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Getter
@@ -11,10 +13,16 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Table(name = "t_user")
+@EntityListeners(UserCacheEvictionListener.class)
 public class User {
 
+    // Must match the INCREMENT BY of t_user_seq
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled sequence: one nextval per ID_ALLOCATION_SIZE inserts, and unlike IDENTITY it keeps JDBC insert batching enabled
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "t_user_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -23,4 +31,21 @@ public class User {
     @JsonIgnore
     @Column(nullable = false)
     private String password;
+
+    // Per-user AES data key, encrypted with a master key; written once on first use, then only re-wrapped in bulk
+    @JsonIgnore
+    @Column(name = "data_key", length = 255, updatable = false)
+    private String dataKey;
+
+    // Change counter of the user's vault; only ever bumped with a bulk update (see VaultChangeService)
+    @JsonIgnore
+    @ColumnDefault("1")
+    @Column(name = "vault_version", nullable = false, insertable = false, updatable = false)
+    private long vaultVersion;
+
+    // Newest vault version whose tombstones may have been pruned; only written by TombstonePruningService
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "tombstones_pruned_version", nullable = false, insertable = false, updatable = false)
+    private long tombstonesPrunedVersion;
 }
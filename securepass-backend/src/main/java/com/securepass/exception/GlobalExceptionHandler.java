@@ -1,6 +1,8 @@
 package com.securepass.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -10,12 +12,16 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    // Unique key on (user_id, site, username), see Credential
+    private static final String SITE_USERNAME_CONSTRAINT = "uk_credential_user_site_username";
+
     /**
      * Handle validation errors from @Valid annotations
      */
@@ -50,6 +56,35 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
     }
 
+    /**
+     * Handle a second credential for the same site and username; any other integrity violation
+     * is a server error
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Map<String, Object>> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        String constraintName = constraintName(ex);
+        if (constraintName == null || !constraintName.toLowerCase(Locale.ROOT).contains(SITE_USERNAME_CONSTRAINT)) {
+            return handleRuntimeException(ex);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "Conflict");
+        response.put("message", "An entry with the same key already exists");
+        
+        log.warn("Data integrity violation: {}", ex.getMostSpecificCause().getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    // Name of the violated constraint as Hibernate extracted it from the database error, if any;
+    // some databases qualify it with the schema or report the backing index instead
+    private static String constraintName(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getConstraintName();
+            }
+        }
+        return null;
+    }
+
     /**
      * Handle illegal argument exceptions
      */
@@ -1,12 +1,87 @@
 package com.securepass.repository;
 
+import com.securepass.dto.CredentialCiphertext;
+import com.securepass.dto.CredentialFingerprint;
+import com.securepass.dto.CredentialMetadata;
 import com.securepass.entity.Credential;
 import com.securepass.entity.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface CredentialRepository extends JpaRepository<Credential, Long> {
     List<Credential> findByUser(User user);
     List<Credential> findByUserId(Long userId);
+
+    // Keyset page: rows strictly after the given id, served by idx_user_id_id
+    List<Credential> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Limit limit);
+
+    // Projection only: the password column is never read
+    @Query("select new com.securepass.dto.CredentialMetadata(c.id, c.site, c.username) " +
+           "from Credential c where c.user.id = :userId order by c.id")
+    List<CredentialMetadata> findMetadataByUserId(@Param("userId") Long userId);
+
+    // Case-insensitive substring match on site or username, served by the trigram indexes from
+    // 003_credential_search_index.sql; the pattern must already be lower-cased with LIKE wildcards escaped
+    @Query("select new com.securepass.dto.CredentialMetadata(c.id, c.site, c.username) " +
+           "from Credential c where c.user.id = :userId and c.id > :afterId " +
+           "and (lower(c.site) like :pattern escape '\\' or lower(c.username) like :pattern escape '\\') " +
+           "order by c.id")
+    List<CredentialMetadata> searchMetadata(@Param("userId") Long userId,
+                                            @Param("afterId") Long afterId,
+                                            @Param("pattern") String pattern,
+                                            Limit limit);
+
+    // Rows inserted or updated in (since, until], served by idx_user_vault_version
+    @Query("select c from Credential c where c.user.id = :userId " +
+           "and c.vaultVersion > :since and c.vaultVersion <= :until order by c.id")
+    List<Credential> findChanged(@Param("userId") Long userId, @Param("since") long since, @Param("until") long until);
+
+    // Keyset walk over values still encrypted directly with a master key (format byte other than 1, the data key format),
+    // served by the partial index idx_credential_master_key from 007_binary_ciphertext.sql
+    @Query("select new com.securepass.dto.CredentialCiphertext(c.id, c.user.id, c.password) " +
+           "from Credential c where c.id > :afterId and function('get_byte', c.password, 0) <> 1 order by c.id")
+    List<CredentialCiphertext> findMasterKeyCiphertextsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Credentials whose password fingerprint occurs more than once in the vault, ordered so equal
+    // fingerprints are adjacent; both the subquery and the outer lookup are served by idx_user_fingerprint
+    @Query("select new com.securepass.dto.CredentialFingerprint(c.id, c.site, c.username, c.fingerprint) " +
+           "from Credential c where c.user.id = :userId and c.fingerprint in (" +
+           "select r.fingerprint from Credential r where r.user.id = :userId and r.fingerprint is not null " +
+           "group by r.fingerprint having count(r) > 1) " +
+           "order by c.fingerprint, c.id")
+    List<CredentialFingerprint> findReused(@Param("userId") Long userId);
+
+    long countByUserIdAndFingerprintIsNull(Long userId);
+
+    // Keyset walk over rows written before fingerprints existed, served by the partial index
+    // idx_credential_missing_fingerprint from 008_credential_fingerprint.sql
+    @Query("select new com.securepass.dto.CredentialCiphertext(c.id, c.user.id, c.password) " +
+           "from Credential c where c.id > :afterId and c.fingerprint is null order by c.id")
+    List<CredentialCiphertext> findUnfingerprintedAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("select max(c.id) from Credential c")
+    Long findMaxId();
+
+    Optional<Credential> findByIdAndUserId(Long id, Long userId);
+    List<Credential> findByIdInAndUserId(Collection<Long> ids, Long userId);
+
+    // Cursor over the whole vault; must be consumed inside a read-only transaction and closed
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Credential c where c.user.id = :userId order by c.id")
+    Stream<Credential> streamByUserId(@Param("userId") Long userId);
 }
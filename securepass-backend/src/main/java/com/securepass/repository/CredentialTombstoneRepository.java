@@ -0,0 +1,16 @@
+package com.securepass.repository;
+
+import com.securepass.entity.CredentialTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface CredentialTombstoneRepository extends JpaRepository<CredentialTombstone, Long> {
+
+    // Credentials deleted in (since, until], served by idx_tombstone_user_vault_version
+    @Query("select t.credentialId from CredentialTombstone t where t.userId = :userId " +
+           "and t.vaultVersion > :since and t.vaultVersion <= :until order by t.credentialId")
+    List<Long> findDeletedIds(@Param("userId") Long userId, @Param("since") long since, @Param("until") long until);
+}
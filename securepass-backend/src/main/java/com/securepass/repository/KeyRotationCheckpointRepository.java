@@ -0,0 +1,7 @@
+package com.securepass.repository;
+
+import com.securepass.entity.KeyRotationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface KeyRotationCheckpointRepository extends JpaRepository<KeyRotationCheckpoint, Integer> {
+}
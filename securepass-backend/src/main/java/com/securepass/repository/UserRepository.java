@@ -1,10 +1,46 @@
 package com.securepass.repository;
 
+import com.securepass.dto.WrappedDataKey;
 import com.securepass.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    // Row-locks the user until commit, which serializes concurrent mutations of one vault
+    @Modifying
+    @Query("update User u set u.vaultVersion = u.vaultVersion + 1 where u.id = :userId")
+    int incrementVaultVersion(@Param("userId") Long userId);
+
+    @Query("select u.vaultVersion from User u where u.id = :userId")
+    long findVaultVersionById(@Param("userId") Long userId);
+
+    @Query("select u.tombstonesPrunedVersion from User u where u.id = :userId")
+    long findTombstonesPrunedVersionById(@Param("userId") Long userId);
+
+    @Query("select u.dataKey from User u where u.id = :userId")
+    String findDataKeyById(@Param("userId") Long userId);
+
+    // Only the first of several concurrent callers stores its key; own transaction so read-only callers can create keys
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("update User u set u.dataKey = :dataKey where u.id = :userId and u.dataKey is null")
+    int setDataKeyIfAbsent(@Param("userId") Long userId, @Param("dataKey") String dataKey);
+
+    @Query("select max(u.id) from User u")
+    Long findMaxId();
+
+    // Keyset walk over wrapped data keys along the primary key, for master key rotation
+    @Query("select new com.securepass.dto.WrappedDataKey(u.id, u.dataKey) " +
+           "from User u where u.id > :afterId and u.dataKey is not null order by u.id")
+    List<WrappedDataKey> findDataKeysAfter(@Param("afterId") Long afterId, Limit limit);
 }
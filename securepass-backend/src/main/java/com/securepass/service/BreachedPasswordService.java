@@ -0,0 +1,161 @@
+package com.securepass.service;
+
+import com.securepass.util.BloomFilterFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offline check of passwords against a corpus of breached passwords, held in a memory-mapped
+ * Bloom filter built by {@link com.securepass.util.BreachedPasswordFilterBuilder}.
+ * <p>
+ * The filter is mapped on the first check, not at startup; until a mapping succeeds every check
+ * tries again. Once mapped, at most once per app.breached-passwords.reload-check-interval a check
+ * also looks at the file's modification time and size, and maps the new file when it was
+ * replaced, so the corpus can be updated without a restart. Without a usable file every password
+ * passes: a missing corpus must not block registration.
+ */
+@Slf4j
+@Service
+public class BreachedPasswordService {
+
+    private final Counter breachedChecks;
+    private final Counter cleanChecks;
+    private final Counter unavailableChecks;
+    // Next time (System.nanoTime) the file behind a loaded filter is looked at again
+    private final AtomicLong nextReloadCheck = new AtomicLong(System.nanoTime());
+
+    @Value("${app.breached-passwords.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.breached-passwords.file:}")
+    private String file;
+
+    @Value("${app.breached-passwords.reload-check-interval:60s}")
+    private Duration reloadCheckInterval;
+
+    @Value("${app.breached-passwords.check-credentials:false}")
+    private boolean checkCredentials;
+
+    private volatile LoadedFilter current;
+    private boolean unavailableLogged;
+
+    public BreachedPasswordService(MeterRegistry meterRegistry) {
+        this.breachedChecks = checkCounter(meterRegistry, "breached");
+        this.cleanChecks = checkCounter(meterRegistry, "clean");
+        this.unavailableChecks = checkCounter(meterRegistry, "unavailable");
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("securepass.breached.checks")
+                .description("Passwords checked against the breached-password filter")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether stored credentials are flagged as well, not just account passwords.
+     */
+    public boolean isCheckingCredentials() {
+        return enabled && checkCredentials;
+    }
+
+    /**
+     * True if the password is (with the filter's false positive rate) in the breached corpus.
+     * Always false when the check is disabled or no filter file is available.
+     */
+    public boolean isBreached(String password) {
+        if (!enabled || password == null) {
+            return false;
+        }
+        LoadedFilter filter = filter();
+        if (filter == null) {
+            unavailableChecks.increment();
+            return false;
+        }
+        boolean breached = filter.filter().mightContain(sha1(password));
+        (breached ? breachedChecks : cleanChecks).increment();
+        return breached;
+    }
+
+    private LoadedFilter filter() {
+        LoadedFilter loaded = current;
+        if (loaded == null) {
+            // Nothing mapped yet: concurrent first checks wait for the one loading it instead of passing
+            reloadIfChanged();
+            return current;
+        }
+        long now = System.nanoTime();
+        long next = nextReloadCheck.get();
+        // One caller per interval looks at the file; everyone else keeps using the current filter
+        if (now - next >= 0 && nextReloadCheck.compareAndSet(next, now + reloadCheckInterval.toNanos())) {
+            reloadIfChanged();
+        }
+        return current;
+    }
+
+    private synchronized void reloadIfChanged() {
+        if (file == null || file.isBlank()) {
+            if (!unavailableLogged) {
+                log.warn("⚠️ Breached-password check is enabled but app.breached-passwords.file is not set; all passwords pass");
+                unavailableLogged = true;
+            }
+            return;
+        }
+
+        Path path = Path.of(file);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            LoadedFilter loaded = current;
+            if (loaded != null && loaded.modified().equals(attributes.lastModifiedTime())
+                    && loaded.size() == attributes.size()) {
+                return;
+            }
+
+            BloomFilterFile filter = BloomFilterFile.open(path);
+            // The previous mapping is released by the garbage collector once no check still uses it
+            current = new LoadedFilter(filter, attributes.lastModifiedTime(), attributes.size());
+            unavailableLogged = false;
+            log.info("📚 {} breached-password filter {} ({} MB, {} hashes)", loaded == null ? "Loaded" : "Reloaded",
+                    path, attributes.size() / 1024 / 1024, filter.getHashCount());
+        } catch (NoSuchFileException e) {
+            if (!unavailableLogged) {
+                log.warn("⚠️ Breached-password filter {} not found; {}", path,
+                        current == null ? "all passwords pass until it exists" : "keeping the loaded filter");
+                unavailableLogged = true;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Logged once: without a filter this is retried on every check
+            if (!unavailableLogged) {
+                log.error("❌ Could not load breached-password filter {}; {}", path,
+                        current == null ? "all passwords pass until it is fixed" : "keeping the loaded filter", e);
+                unavailableLogged = true;
+            }
+        }
+    }
+
+    private static byte[] sha1(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private record LoadedFilter(BloomFilterFile filter, FileTime modified, long size) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.securepass.service;
+
+import com.securepass.entity.Credential;
+import com.securepass.repository.CredentialRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user cache of vault rows in front of {@link CredentialRepository#findByUserId}.
+ * Entries hold ciphertext only; decryption still happens on every read.
+ * <p>
+ * Each entry remembers the persisted vault version (t_user.vault_version) it was loaded at and
+ * is only served to a caller that read the same version, so neither a write that commits while
+ * a reader is loading nor a write handled by another instance can leave stale rows behind.
+ * Writes on this instance also evict the entry directly (see {@link VaultChangeService}) to
+ * release the memory right away.
+ */
+@Slf4j
+@Component
+public class CredentialCache {
+
+    private final CredentialRepository credentialRepository;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${app.vault.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${app.vault.cache.max-users:1000}")
+    private int maxUsers;
+
+    @Value("${app.vault.cache.max-rows-per-user:5000}")
+    private int maxRowsPerUser;
+
+    public CredentialCache(CredentialRepository credentialRepository,
+                           MeterRegistry meterRegistry) {
+        this.credentialRepository = credentialRepository;
+        this.hits = Counter.builder("securepass.vault.cache")
+                .description("Vault listings served from the ciphertext cache or loaded from the database")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("securepass.vault.cache")
+                .description("Vault listings served from the ciphertext cache or loaded from the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("securepass.vault.cache.size", entries, Map::size)
+                .description("Users with a cached vault")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The user's credentials in id order. The returned list is shared and must not be modified.
+     *
+     * @param version the user's vault version, read before calling
+     */
+    public List<Credential> findByUserId(Long userId, long version) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.version() == version && entry.expiresAt() > now) {
+            hits.increment();
+            return entry.rows();
+        }
+
+        misses.increment();
+        // The version was read before loading, so rows from a concurrent write are cached under an already outdated version
+        List<Credential> rows = credentialRepository.findByUserId(userId);
+        if (rows.size() <= maxRowsPerUser) {
+            if (!entries.containsKey(userId) && entries.size() >= maxUsers) {
+                makeRoom(now);
+            }
+            entries.put(userId, new Entry(version, copyOf(rows), now + ttlSeconds * 1000));
+        }
+        return rows;
+    }
+
+    public void evict(Long userId) {
+        if (entries.remove(userId) != null) {
+            log.debug("Evicted vault of user ID {} from credential cache", userId);
+        }
+    }
+
+    // Drops expired entries, or the oldest one when nothing has expired yet
+    private void makeRoom(long now) {
+        entries.values().removeIf(e -> e.expiresAt() <= now);
+        if (entries.size() < maxUsers) {
+            return;
+        }
+        entries.entrySet().stream()
+                .min(Map.Entry.comparingByValue((a, b) -> Long.compare(a.expiresAt(), b.expiresAt())))
+                .ifPresent(oldest -> entries.remove(oldest.getKey(), oldest.getValue()));
+    }
+
+    // Detached copies without the user graph, so cached rows cannot be changed through an entity another caller holds
+    private static List<Credential> copyOf(List<Credential> rows) {
+        List<Credential> copies = new ArrayList<>(rows.size());
+        for (Credential row : rows) {
+            copies.add(Credential.builder()
+                    .id(row.getId())
+                    .site(row.getSite())
+                    .username(row.getUsername())
+                    .password(row.getPassword())
+                    .vaultVersion(row.getVaultVersion())
+                    .updatedAt(row.getUpdatedAt())
+                    .build());
+        }
+        return List.copyOf(copies);
+    }
+
+    private record Entry(long version, List<Credential> rows, long expiresAt) {
+    }
+}
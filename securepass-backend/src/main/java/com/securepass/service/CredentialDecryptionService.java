@@ -0,0 +1,116 @@
+package com.securepass.service;
+
+import com.securepass.dto.CredentialResponse;
+import com.securepass.entity.Credential;
+import com.securepass.util.AesEncryptionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Turns stored credentials into responses with decrypted passwords.
+ * Small vaults are decrypted on the request thread; larger ones are split into
+ * chunks that run on the vault decryption pool.
+ */
+@Slf4j
+@Service
+public class CredentialDecryptionService {
+
+    public static final String DECRYPTION_ERROR_PLACEHOLDER =
+            "[DECRYPTION_ERROR: This credential was encrypted with an old method. Please delete and re-add it.]";
+
+    private final AesEncryptionUtil aesUtil;
+    private final DataKeyService dataKeyService;
+    private final BreachedPasswordService breachedPasswordService;
+    private final Executor executor;
+
+    @Value("${app.vault.decryption.parallel-threshold:64}")
+    private int parallelThreshold;
+
+    @Value("${app.vault.decryption.pool-size:4}")
+    private int parallelism;
+
+    public CredentialDecryptionService(AesEncryptionUtil aesUtil,
+                                       DataKeyService dataKeyService,
+                                       BreachedPasswordService breachedPasswordService,
+                                       @Qualifier("vaultDecryptionExecutor") Executor executor) {
+        this.aesUtil = aesUtil;
+        this.dataKeyService = dataKeyService;
+        this.breachedPasswordService = breachedPasswordService;
+        this.executor = executor;
+    }
+
+    /**
+     * @param credentials credentials owned by the given user
+     */
+    public List<CredentialResponse> toResponses(Long userId, List<Credential> credentials) {
+        if (credentials.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Unwrapped once for the whole listing
+        SecretKey dataKey = dataKeyService.forUser(userId);
+        if (credentials.size() < parallelThreshold || parallelism < 2) {
+            return decryptChunk(credentials, dataKey);
+        }
+
+        // One chunk per worker, each at least half the threshold so tiny chunks don't pay the hand-off cost
+        int chunkSize = Math.max(parallelThreshold / 2, (credentials.size() + parallelism - 1) / parallelism);
+        List<CompletableFuture<List<CredentialResponse>>> futures = new ArrayList<>();
+        int start = 0;
+        while (start + chunkSize < credentials.size()) {
+            List<Credential> chunk = credentials.subList(start, start + chunkSize);
+            futures.add(CompletableFuture.supplyAsync(() -> decryptChunk(chunk, dataKey), executor));
+            start += chunkSize;
+        }
+
+        // The request thread takes the last chunk instead of idling
+        List<CredentialResponse> tail = decryptChunk(credentials.subList(start, credentials.size()), dataKey);
+
+        List<CredentialResponse> responses = new ArrayList<>(credentials.size());
+        for (CompletableFuture<List<CredentialResponse>> future : futures) {
+            responses.addAll(future.join());
+        }
+        responses.addAll(tail);
+        return responses;
+    }
+
+    public CredentialResponse toResponse(Long userId, Credential cred) {
+        return toResponse(cred, dataKeyService.forUser(userId));
+    }
+
+    /**
+     * @param dataKey the data key of the credential's owner
+     */
+    public CredentialResponse toResponse(Credential cred, SecretKey dataKey) {
+        CredentialResponse dto = new CredentialResponse();
+        dto.setId(cred.getId());
+        dto.setSite(cred.getSite());
+        dto.setUsername(cred.getUsername());
+        try {
+            dto.setPassword(aesUtil.decrypt(cred.getPassword(), dataKey));
+            if (breachedPasswordService.isCheckingCredentials()) {
+                dto.setBreached(breachedPasswordService.isBreached(dto.getPassword()));
+            }
+        } catch (Exception e) {
+            log.error("❌ Failed to decrypt credential ID {}: {}", cred.getId(), e.getMessage());
+            // Return credential with error message instead of failing completely
+            dto.setPassword(DECRYPTION_ERROR_PLACEHOLDER);
+        }
+        return dto;
+    }
+
+    private List<CredentialResponse> decryptChunk(List<Credential> chunk, SecretKey dataKey) {
+        List<CredentialResponse> responses = new ArrayList<>(chunk.size());
+        for (Credential cred : chunk) {
+            responses.add(toResponse(cred, dataKey));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,306 @@
+package com.securepass.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securepass.dto.CredentialRequest;
+import com.securepass.dto.ImportResult;
+import com.securepass.dto.UpsertResult;
+import com.securepass.entity.Credential;
+import com.securepass.util.AesEncryptionUtil;
+import com.securepass.util.BoundedLineReader;
+import com.securepass.util.CsvRecordReader;
+import com.securepass.util.InputSanitizer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import javax.crypto.SecretKey;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Streaming bulk import. Rows are parsed, validated and encrypted one at a time and
+ * upserted in fixed-size chunks, each in its own transaction and one statement, so peak
+ * memory depends on the chunk size rather than the upload size. Rows are keyed on site and
+ * username, so importing the same file again updates or skips instead of duplicating.
+ * <p>
+ * Reading stops after app.vault.import.max-bytes: the rows before the limit are kept and the
+ * result is marked truncated.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CredentialImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    // A valid value is at most 500 characters (the password, see CredentialRequest), a valid JSON line at most
+    // about 6000 even with every character escaped. Longer fields and lines reject their row without being
+    // held in memory.
+    private static final int MAX_FIELD_LENGTH = 1024;
+    private static final int MAX_CSV_FIELDS = 64;
+    private static final int MAX_LINE_LENGTH = 8192;
+
+    private final VaultChangeService changeService;
+    private final AesEncryptionUtil aesUtil;
+    private final DataKeyService dataKeyService;
+    private final InputSanitizer inputSanitizer;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.vault.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.vault.import.max-bytes:10MB}")
+    private DataSize maxBytes;
+
+    /**
+     * Imports newline-delimited JSON: one {"site","username","password"} object per line.
+     */
+    public ImportResult importNdjson(Long userId, InputStream in) throws IOException {
+        ImportSession session = new ImportSession(userId);
+        BoundedLineReader reader = new BoundedLineReader(
+                new BufferedReader(new InputStreamReader(capped(in), StandardCharsets.UTF_8)), MAX_LINE_LENGTH);
+
+        String line;
+        long row = 0;
+        try {
+            while ((line = reader.next()) != null) {
+                row++;
+                if (reader.isOversized()) {
+                    session.reject(row, "Line exceeds " + MAX_LINE_LENGTH + " characters");
+                    continue;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    session.accept(row, objectMapper.readValue(line, CredentialRequest.class));
+                } catch (JsonProcessingException e) {
+                    session.reject(row, "Malformed JSON");
+                }
+            }
+        } catch (ImportSizeExceededException e) {
+            session.truncate();
+        }
+        return session.finish();
+    }
+
+    /**
+     * Imports CSV with a header row naming site, username and password columns (any order, any case).
+     */
+    public ImportResult importCsv(Long userId, InputStream in) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(
+                new BufferedReader(new InputStreamReader(capped(in), StandardCharsets.UTF_8)), MAX_FIELD_LENGTH, MAX_CSV_FIELDS);
+        List<String> header;
+        try {
+            header = csv.next();
+        } catch (ImportSizeExceededException e) {
+            throw new IllegalArgumentException("CSV header exceeds the import size limit of " + maxBytes.toBytes() + " bytes");
+        }
+        if (header == null) {
+            return new ImportResult();
+        }
+        if (csv.isOversized()) {
+            throw new IllegalArgumentException("CSV header has a column name over " + MAX_FIELD_LENGTH
+                    + " characters or more than " + MAX_CSV_FIELDS + " columns");
+        }
+
+        int siteIndex = -1, usernameIndex = -1, passwordIndex = -1;
+        for (int i = 0; i < header.size(); i++) {
+            switch (header.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "site" -> siteIndex = i;
+                case "username" -> usernameIndex = i;
+                case "password" -> passwordIndex = i;
+                default -> { }
+            }
+        }
+        if (siteIndex == -1 || passwordIndex == -1) {
+            throw new IllegalArgumentException("CSV must have \"site\" and \"password\" columns");
+        }
+
+        ImportSession session = new ImportSession(userId);
+        List<String> record;
+        try {
+            while ((record = csv.next()) != null) {
+                if (csv.isOversized()) {
+                    session.reject(csv.getRecordNumber() - 1, "Record has a field over " + MAX_FIELD_LENGTH
+                            + " characters or more than " + MAX_CSV_FIELDS + " fields");
+                    continue;
+                }
+                CredentialRequest req = new CredentialRequest();
+                req.setSite(field(record, siteIndex));
+                req.setUsername(field(record, usernameIndex));
+                req.setPassword(field(record, passwordIndex));
+                // Header is record 1, so data rows are numbered from 1 as well
+                session.accept(csv.getRecordNumber() - 1, req);
+            }
+        } catch (ImportSizeExceededException e) {
+            session.truncate();
+        }
+        return session.finish();
+    }
+
+    private InputStream capped(InputStream in) {
+        return new CappedInputStream(in, maxBytes.toBytes());
+    }
+
+    private static String field(List<String> record, int index) {
+        return index >= 0 && index < record.size() ? record.get(index) : null;
+    }
+
+    private class ImportSession {
+        private final Long userId;
+        private final ImportResult result = new ImportResult();
+        private final List<CredentialRequest> pending = new ArrayList<>(chunkSize);
+        private final List<Long> pendingRows = new ArrayList<>(chunkSize);
+
+        ImportSession(Long userId) {
+            this.userId = userId;
+        }
+
+        void accept(long row, CredentialRequest req) {
+            Set<ConstraintViolation<CredentialRequest>> violations = validator.validate(req);
+            if (!violations.isEmpty()) {
+                reject(row, violations.iterator().next().getMessage());
+                return;
+            }
+
+            // Sanitize and trim inputs; passwords are kept verbatim
+            req.setSite(inputSanitizer.trim(inputSanitizer.sanitize(req.getSite())));
+            req.setUsername(inputSanitizer.trim(inputSanitizer.sanitize(req.getUsername())));
+            pending.add(req);
+            pendingRows.add(row);
+
+            if (pending.size() >= chunkSize) {
+                flushChunk();
+            }
+        }
+
+        void reject(long row, String message) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                result.getErrors().add(new ImportResult.RowError(row, message));
+            } else {
+                result.setErrorsTruncated(true);
+            }
+        }
+
+        // The row being read when the limit was hit is dropped; every earlier one is kept
+        void truncate() {
+            result.setTruncated(true);
+            log.warn("⚠️ Import for user ID {} stopped at the {}-byte limit", userId, maxBytes.toBytes());
+        }
+
+        ImportResult finish() {
+            if (!pending.isEmpty()) {
+                flushChunk();
+            }
+            log.info("✅ Imported {} credentials for user ID {} ({} inserted, {} updated, {} skipped; {} rows rejected)",
+                    result.getImported(), userId, result.getInserted(), result.getUpdated(), result.getSkipped(),
+                    result.getFailed());
+            return result;
+        }
+
+        private void flushChunk() {
+            SecretKey dataKey = dataKeyService.forUser(userId);
+            List<String> passwords = pending.stream().map(CredentialRequest::getPassword).toList();
+            List<byte[]> encrypted = aesUtil.encryptAll(passwords, dataKey);
+            List<byte[]> fingerprints = aesUtil.fingerprintAll(passwords, dataKey);
+            List<Credential> credentials = new ArrayList<>(pending.size());
+            for (int i = 0; i < pending.size(); i++) {
+                CredentialRequest req = pending.get(i);
+                credentials.add(Credential.builder()
+                        .site(req.getSite())
+                        .username(req.getUsername())
+                        .password(encrypted.get(i))
+                        .fingerprint(fingerprints.get(i))
+                        .build());
+            }
+            try {
+                // Native upsert: nothing enters the persistence context
+                UpsertResult upserted = changeService.upsertAll(userId, credentials);
+                result.setImported(result.getImported() + pending.size());
+                result.setInserted(result.getInserted() + upserted.getInserted());
+                result.setUpdated(result.getUpdated() + upserted.getUpdated());
+                result.setSkipped(result.getSkipped() + upserted.getSkipped());
+            } catch (DataAccessException e) {
+                log.error("❌ Failed to save import chunk for user ID {}: {}", userId, e.getMessage());
+                for (Long row : pendingRows) {
+                    reject(row, "Could not be saved");
+                }
+            }
+            pending.clear();
+            pendingRows.clear();
+        }
+    }
+
+    /**
+     * Counts the bytes read and fails once the upload goes past the limit, so a chunked request
+     * without a Content-Length cannot stream rows indefinitely. An upload of exactly the limit
+     * reads to its end.
+     */
+    private static class CappedInputStream extends FilterInputStream {
+        private long remaining;
+
+        CappedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                return endOrFail();
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining == 0) {
+                return endOrFail();
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        // Never more than the limit, so a reader decodes what it has instead of reading into the failure
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        private int endOrFail() throws IOException {
+            if (in.read() == -1) {
+                return -1;
+            }
+            throw new ImportSizeExceededException();
+        }
+    }
+
+    private static class ImportSizeExceededException extends IOException {
+    }
+}
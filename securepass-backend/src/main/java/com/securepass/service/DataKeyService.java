@@ -0,0 +1,96 @@
+package com.securepass.service;
+
+import com.securepass.repository.UserRepository;
+import com.securepass.util.AesEncryptionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user data keys for envelope encryption. Each user's credentials are encrypted with their
+ * own random key, which is stored wrapped by the master key; rotating the master key therefore
+ * only re-wraps one value per user. Unwrapped keys are cached briefly so a vault listing
+ * unwraps once and then decrypts every row with the same key.
+ */
+@Slf4j
+@Component
+public class DataKeyService {
+
+    private final UserRepository userRepository;
+    private final AesEncryptionUtil aesUtil;
+    private final Map<Long, Entry> unwrappedKeys = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${app.vault.data-key-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${app.vault.data-key-cache.max-size:10000}")
+    private int maxSize;
+
+    public DataKeyService(UserRepository userRepository, AesEncryptionUtil aesUtil, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.aesUtil = aesUtil;
+        this.hits = Counter.builder("securepass.datakey.cache")
+                .description("Data key lookups served from memory or unwrapped from the database")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("securepass.datakey.cache")
+                .description("Data key lookups served from memory or unwrapped from the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The user's data key, created on first use.
+     */
+    public SecretKey forUser(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = unwrappedKeys.get(userId);
+        if (entry != null && entry.expiresAt() > now) {
+            hits.increment();
+            return entry.key();
+        }
+
+        misses.increment();
+        SecretKey key = aesUtil.unwrapKey(loadOrCreate(userId));
+        if (unwrappedKeys.size() >= maxSize) {
+            unwrappedKeys.values().removeIf(e -> e.expiresAt() <= now);
+            if (unwrappedKeys.size() >= maxSize) {
+                unwrappedKeys.clear();
+            }
+        }
+        unwrappedKeys.put(userId, new Entry(key, now + ttlSeconds * 1000));
+        return key;
+    }
+
+    public void evict(Long userId) {
+        unwrappedKeys.remove(userId);
+    }
+
+    private String loadOrCreate(Long userId) {
+        String wrapped = userRepository.findDataKeyById(userId);
+        if (wrapped != null) {
+            return wrapped;
+        }
+
+        if (userRepository.setDataKeyIfAbsent(userId, aesUtil.wrapKey(aesUtil.newDataKey())) > 0) {
+            log.info("🔑 Created data key for user ID {}", userId);
+        }
+        // A concurrent request may have stored its key first; whichever is stored is the user's key
+        wrapped = userRepository.findDataKeyById(userId);
+        if (wrapped == null) {
+            throw new IllegalStateException("User ID " + userId + " not found");
+        }
+        return wrapped;
+    }
+
+    private record Entry(SecretKey key, long expiresAt) {
+    }
+}
@@ -0,0 +1,160 @@
+package com.securepass.service;
+
+import com.securepass.dto.CredentialCiphertext;
+import com.securepass.repository.CredentialRepository;
+import com.securepass.util.AesEncryptionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that computes the password fingerprint (see {@link AesEncryptionUtil#fingerprint})
+ * of credentials stored before fingerprints were written, so GET /vault/reuse covers them too.
+ * <p>
+ * Walks the rows without a fingerprint along the primary key, one chunk at a time, paced to
+ * app.vault.fingerprint-backfill.max-rows-per-second. Finished rows drop out of the walk, so
+ * no checkpoint is needed: a restart simply starts over on what is left. A fingerprint is only
+ * stored if the row still has none: every write path stores the fingerprint of the password it
+ * writes, and key rotation re-encrypts under the same data key without changing the plaintext,
+ * so a row that still lacks one still holds the password that was read.
+ */
+@Slf4j
+@Service
+public class FingerprintBackfillService {
+
+    // Compare-and-set on the fingerprint, not the ciphertext, which key rotation may have replaced meanwhile
+    private static final String FINGERPRINT_SQL =
+            "UPDATE t_credential SET fingerprint = ? WHERE id = ? AND fingerprint IS NULL";
+
+    private final CredentialRepository credentialRepo;
+    private final AesEncryptionUtil aesUtil;
+    private final DataKeyService dataKeyService;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Counter fingerprintedRows;
+    private final Counter skippedRows;
+    private final Counter failedRows;
+
+    @Value("${app.vault.fingerprint-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.vault.fingerprint-backfill.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.vault.fingerprint-backfill.max-rows-per-second:1000}")
+    private int maxRowsPerSecond;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public FingerprintBackfillService(CredentialRepository credentialRepo,
+                                      AesEncryptionUtil aesUtil,
+                                      DataKeyService dataKeyService,
+                                      JdbcTemplate jdbcTemplate,
+                                      MeterRegistry meterRegistry) {
+        this.credentialRepo = credentialRepo;
+        this.aesUtil = aesUtil;
+        this.dataKeyService = dataKeyService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.fingerprintedRows = rowCounter(meterRegistry, "fingerprinted");
+        this.skippedRows = rowCounter(meterRegistry, "skipped");
+        this.failedRows = rowCounter(meterRegistry, "failed");
+    }
+
+    private static Counter rowCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("securepass.fingerprint.backfill.rows")
+                .description("Credentials visited by the password fingerprint backfill")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "fingerprint-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        long minNanosPerRow = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxRowsPerSecond);
+        long afterId = 0;
+        long fingerprinted = 0;
+        long failed = 0;
+        try {
+            while (running) {
+                long chunkStart = System.nanoTime();
+                List<CredentialCiphertext> chunk = credentialRepo.findUnfingerprintedAfter(afterId, Limit.of(chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                if (afterId == 0) {
+                    log.info("🔁 Backfilling password fingerprints (max {} rows/s)", maxRowsPerSecond);
+                }
+
+                List<Object[]> updates = new ArrayList<>(chunk.size());
+                for (CredentialCiphertext row : chunk) {
+                    try {
+                        SecretKey dataKey = dataKeyService.forUser(row.getUserId());
+                        byte[] fingerprint = aesUtil.fingerprint(aesUtil.decrypt(row.getPassword(), dataKey), dataKey);
+                        updates.add(new Object[]{fingerprint, row.getId()});
+                    } catch (RuntimeException e) {
+                        failed++;
+                        failedRows.increment();
+                        log.warn("⚠️ Credential ID {} could not be fingerprinted: {}", row.getId(), e.getMessage());
+                    }
+                }
+                int stored = 0;
+                if (!updates.isEmpty()) {
+                    for (int count : jdbcTemplate.batchUpdate(FINGERPRINT_SQL, updates)) {
+                        if (count != 0) {
+                            stored++;
+                        }
+                    }
+                }
+                fingerprinted += stored;
+                fingerprintedRows.increment(stored);
+                skippedRows.increment(updates.size() - stored);
+                afterId = chunk.get(chunk.size() - 1).getId();
+
+                // Throttle: a chunk may not finish faster than max-rows-per-second allows for its rows
+                long remainingNanos = chunk.size() * minNanosPerRow - (System.nanoTime() - chunkStart);
+                if (remainingNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(remainingNanos);
+                }
+            }
+            if (afterId > 0) {
+                log.info("✅ Password fingerprint backfill {}: {} fingerprinted, {} failed",
+                        running ? "complete" : "stopped", fingerprinted, failed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("⏸️ Password fingerprint backfill paused after credential ID {}; it resumes on the next start", afterId);
+        } catch (RuntimeException e) {
+            log.error("❌ Password fingerprint backfill stopped after credential ID {}; it resumes on the next start", afterId, e);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.securepass.service;
+
+import com.securepass.dto.CredentialCiphertext;
+import com.securepass.dto.WrappedDataKey;
+import com.securepass.entity.KeyRotationCheckpoint;
+import com.securepass.repository.CredentialRepository;
+import com.securepass.repository.KeyRotationCheckpointRepository;
+import com.securepass.repository.UserRepository;
+import com.securepass.util.AesEncryptionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Background master key rotation, resumable from a checkpoint per target key.
+ * <p>
+ * Passwords are encrypted with per-user data keys (see {@link DataKeyService}), so rotating
+ * the master key only re-wraps one data key per user. The job first walks t_user and re-wraps
+ * every data key under the active key, then walks the credentials still encrypted directly
+ * with a master key (rows from before envelope encryption) and moves them to their owner's
+ * data key. Both walks go along the primary key in waves of up to one chunk per worker;
+ * workers handle their chunk in parallel, and the checkpoint only advances once the whole
+ * wave is stored, so a restart resumes after the last completed wave. Waves are paced to
+ * app.key-rotation.max-rows-per-second, and each value is only replaced if it still holds
+ * what was read, so a concurrent write always wins. Re-encrypted rows do not go through
+ * {@link VaultChangeService}, so each chunk evicts its owners from this instance's
+ * {@link CredentialCache}; other instances serve the old ciphertext until their cache TTL.
+ */
+@Slf4j
+@Service
+public class KeyRotationService {
+
+    // Compare-and-set: a value changed meanwhile was written under the current keys and is left alone
+    private static final String REWRAP_SQL = "UPDATE t_user SET data_key = ? WHERE id = ? AND data_key = ?";
+    private static final String REENCRYPT_SQL = "UPDATE t_credential SET password = ? WHERE id = ? AND password = ?";
+
+    private final CredentialRepository credentialRepo;
+    private final UserRepository userRepo;
+    private final KeyRotationCheckpointRepository checkpointRepo;
+    private final AesEncryptionUtil aesUtil;
+    private final DataKeyService dataKeyService;
+    private final CredentialCache credentialCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService workers;
+
+    private final Counter scannedRows;
+    private final Counter rewrappedRows;
+    private final Counter reencryptedRows;
+    private final Counter failedRows;
+    private final AtomicLong lastId = new AtomicLong();
+
+    @Value("${app.key-rotation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.key-rotation.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.key-rotation.workers:2}")
+    private int workerCount;
+
+    @Value("${app.key-rotation.max-rows-per-second:1000}")
+    private int maxRowsPerSecond;
+
+    @Value("${app.key-rotation.progress-interval:30s}")
+    private Duration progressInterval;
+
+    private volatile boolean running;
+    private Thread coordinator;
+
+    public KeyRotationService(CredentialRepository credentialRepo,
+                              UserRepository userRepo,
+                              KeyRotationCheckpointRepository checkpointRepo,
+                              AesEncryptionUtil aesUtil,
+                              DataKeyService dataKeyService,
+                              CredentialCache credentialCache,
+                              JdbcTemplate jdbcTemplate,
+                              @Qualifier("keyRotationExecutor") ExecutorService workers,
+                              MeterRegistry meterRegistry) {
+        this.credentialRepo = credentialRepo;
+        this.userRepo = userRepo;
+        this.checkpointRepo = checkpointRepo;
+        this.aesUtil = aesUtil;
+        this.dataKeyService = dataKeyService;
+        this.credentialCache = credentialCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.workers = workers;
+        this.scannedRows = rowCounter(meterRegistry, "scanned");
+        this.rewrappedRows = rowCounter(meterRegistry, "rewrapped");
+        this.reencryptedRows = rowCounter(meterRegistry, "reencrypted");
+        this.failedRows = rowCounter(meterRegistry, "failed");
+        Gauge.builder("securepass.keyrotation.last.id", lastId, AtomicLong::get)
+                .description("Highest credential id the key rotation has completed")
+                .register(meterRegistry);
+    }
+
+    private static Counter rowCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("securepass.keyrotation.rows")
+                .description("Data keys and credentials visited by the background key rotation")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        coordinator = new Thread(this::run, "key-rotation-coordinator");
+        coordinator.setDaemon(true);
+        coordinator.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (coordinator != null) {
+            coordinator.interrupt();
+        }
+        workers.shutdownNow();
+    }
+
+    private void run() {
+        int targetKeyId = aesUtil.getActiveKeyId();
+        KeyRotationCheckpoint checkpoint = checkpointRepo.findById(targetKeyId)
+                .orElseGet(() -> KeyRotationCheckpoint.builder().targetKeyId(targetKeyId).build());
+        if (checkpoint.isCompleted()) {
+            log.info("🔑 Key rotation to key {} already completed; nothing to do", targetKeyId);
+            return;
+        }
+
+        log.info("🔑 Rotating to key {}, resuming after user ID {} and credential ID {} ({} workers, max {} rows/s)",
+                targetKeyId, checkpoint.getLastUserId(), checkpoint.getLastId(), workerCount, maxRowsPerSecond);
+        try {
+            Phase<WrappedDataKey> rewrap = new Phase<>(
+                    "data keys", userRepo.findMaxId(),
+                    KeyRotationCheckpoint::getLastUserId, KeyRotationCheckpoint::setLastUserId,
+                    afterId -> userRepo.findDataKeysAfter(afterId, Limit.of(chunkSize)),
+                    WrappedDataKey::getUserId, this::rewrap);
+            Phase<CredentialCiphertext> reencrypt = new Phase<>(
+                    "credentials", credentialRepo.findMaxId(),
+                    KeyRotationCheckpoint::getLastId, KeyRotationCheckpoint::setLastId,
+                    afterId -> credentialRepo.findMasterKeyCiphertextsAfter(afterId, Limit.of(chunkSize)),
+                    CredentialCiphertext::getId, this::reencrypt);
+            lastId.set(checkpoint.getLastId());
+            if (walk(checkpoint, rewrap) && walk(checkpoint, reencrypt)) {
+                complete(checkpoint);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("⏸️ Key rotation to key {} paused after user ID {} and credential ID {}; it resumes on the next start",
+                    targetKeyId, checkpoint.getLastUserId(), checkpoint.getLastId());
+        } catch (ExecutionException | RuntimeException e) {
+            log.error("❌ Key rotation to key {} stopped after user ID {} and credential ID {}; it resumes on the next start",
+                    targetKeyId, checkpoint.getLastUserId(), checkpoint.getLastId(), e);
+        }
+    }
+
+    /**
+     * Runs one phase to the end.
+     *
+     * @return false if the job was stopped first
+     */
+    private <T> boolean walk(KeyRotationCheckpoint checkpoint, Phase<T> phase)
+            throws InterruptedException, ExecutionException {
+        long minNanosPerRow = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxRowsPerSecond);
+        long nextProgressLog = System.nanoTime() + progressInterval.toNanos();
+        while (running) {
+            long waveStart = System.nanoTime();
+
+            // Read up to one chunk per worker, then hand them out
+            List<Future<ChunkResult>> results = new ArrayList<>(workerCount);
+            long waveEnd = phase.lastId().applyAsLong(checkpoint);
+            int waveRows = 0;
+            for (int i = 0; i < workerCount; i++) {
+                List<T> chunk = phase.next().apply(waveEnd);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                results.add(workers.submit(() -> phase.process().apply(chunk)));
+                waveEnd = phase.idOf().applyAsLong(chunk.get(chunk.size() - 1));
+                waveRows += chunk.size();
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+            if (results.isEmpty()) {
+                return true;
+            }
+
+            // The checkpoint only moves past a wave once every chunk in it is stored
+            for (Future<ChunkResult> result : results) {
+                ChunkResult chunkResult = result.get();
+                checkpoint.setRewrapped(checkpoint.getRewrapped() + chunkResult.rewrapped());
+                checkpoint.setReencrypted(checkpoint.getReencrypted() + chunkResult.reencrypted());
+                checkpoint.setFailed(checkpoint.getFailed() + chunkResult.failed());
+            }
+            phase.setLastId().accept(checkpoint, waveEnd);
+            checkpoint.setScanned(checkpoint.getScanned() + waveRows);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointRepo.save(checkpoint);
+            scannedRows.increment(waveRows);
+            lastId.set(checkpoint.getLastId());
+
+            if (System.nanoTime() >= nextProgressLog) {
+                logProgress(checkpoint, phase, waveEnd);
+                nextProgressLog = System.nanoTime() + progressInterval.toNanos();
+            }
+
+            // Throttle: a wave may not finish faster than max-rows-per-second allows for its rows
+            long remainingNanos = waveRows * minNanosPerRow - (System.nanoTime() - waveStart);
+            if (remainingNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(remainingNanos);
+            }
+        }
+        return false;
+    }
+
+    private ChunkResult rewrap(List<WrappedDataKey> chunk) {
+        List<Object[]> updates = new ArrayList<>();
+        int failed = 0;
+        for (WrappedDataKey row : chunk) {
+            try {
+                if (aesUtil.needsRewrap(row.getDataKey())) {
+                    String rewrapped = aesUtil.wrapKey(aesUtil.unwrapKey(row.getDataKey()));
+                    updates.add(new Object[]{rewrapped, row.getUserId(), row.getDataKey()});
+                }
+            } catch (RuntimeException e) {
+                failed++;
+                log.warn("⚠️ Data key of user ID {} could not be re-wrapped: {}", row.getUserId(), e.getMessage());
+            }
+        }
+
+        int rewrapped = store(REWRAP_SQL, updates);
+        rewrappedRows.increment(rewrapped);
+        failedRows.increment(failed);
+        return new ChunkResult(rewrapped, 0, failed);
+    }
+
+    private ChunkResult reencrypt(List<CredentialCiphertext> chunk) {
+        List<Object[]> updates = new ArrayList<>();
+        Set<Long> owners = new HashSet<>();
+        int failed = 0;
+        for (CredentialCiphertext row : chunk) {
+            try {
+                SecretKey dataKey = dataKeyService.forUser(row.getUserId());
+                byte[] reencrypted = aesUtil.encrypt(aesUtil.decrypt(row.getPassword(), dataKey), dataKey);
+                updates.add(new Object[]{reencrypted, row.getId(), row.getPassword()});
+                owners.add(row.getUserId());
+            } catch (RuntimeException e) {
+                failed++;
+                log.warn("⚠️ Credential ID {} could not be re-encrypted: {}", row.getId(), e.getMessage());
+            }
+        }
+
+        int reencrypted = store(REENCRYPT_SQL, updates);
+        // Cached rows still hold the master key ciphertext, which must not outlive the old key
+        owners.forEach(credentialCache::evict);
+        reencryptedRows.increment(reencrypted);
+        failedRows.increment(failed);
+        return new ChunkResult(0, reencrypted, failed);
+    }
+
+    private int store(String sql, List<Object[]> updates) {
+        int stored = 0;
+        if (!updates.isEmpty()) {
+            for (int count : jdbcTemplate.batchUpdate(sql, updates)) {
+                if (count != 0) {
+                    stored++;
+                }
+            }
+        }
+        return stored;
+    }
+
+    private void complete(KeyRotationCheckpoint checkpoint) {
+        checkpoint.setCompleted(true);
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointRepo.save(checkpoint);
+        log.info("✅ Key rotation to key {} complete: {} scanned, {} data keys re-wrapped, {} credentials re-encrypted, {} failed",
+                checkpoint.getTargetKeyId(), checkpoint.getScanned(), checkpoint.getRewrapped(),
+                checkpoint.getReencrypted(), checkpoint.getFailed());
+        if (checkpoint.getFailed() > 0) {
+            log.warn("⚠️ {} data keys or credentials still use an older key; keep those keys configured until they are fixed",
+                    checkpoint.getFailed());
+        }
+    }
+
+    private void logProgress(KeyRotationCheckpoint checkpoint, Phase<?> phase, long position) {
+        Long maxId = phase.maxId();
+        long percent = maxId == null || maxId == 0 ? 100 : Math.min(100, position * 100 / maxId);
+        log.info("🔑 Key rotation to key {}: {} ~{}% (ID {} of ~{}), {} scanned, {} re-wrapped, {} re-encrypted, {} failed",
+                checkpoint.getTargetKeyId(), phase.name(), percent, position, maxId, checkpoint.getScanned(),
+                checkpoint.getRewrapped(), checkpoint.getReencrypted(), checkpoint.getFailed());
+    }
+
+    // One keyset walk: where it stands in the checkpoint, how to read the next chunk and how to process it
+    private record Phase<T>(String name,
+                            Long maxId,
+                            ToLongFunction<KeyRotationCheckpoint> lastId,
+                            ObjLongConsumer<KeyRotationCheckpoint> setLastId,
+                            LongFunction<List<T>> next,
+                            ToLongFunction<T> idOf,
+                            Function<List<T>, ChunkResult> process) {
+    }
+
+    private record ChunkResult(int rewrapped, int reencrypted, int failed) {
+    }
+}
@@ -0,0 +1,126 @@
+package com.securepass.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Background job that deletes credential tombstones older than app.vault.tombstones.retention,
+ * so t_credential_tombstone does not grow with every delete ever made.
+ * <p>
+ * Each pruned vault records the newest version whose tombstones may be gone in
+ * t_user.tombstones_pruned_version; a delta-sync client asking for changes since an older
+ * version gets a 410 from GET /vault/changes and starts over from since=0. Runs every
+ * app.vault.tombstones.prune-interval, one chunk per statement, on every instance: instances
+ * skip the rows another one is deleting.
+ */
+@Slf4j
+@Service
+public class TombstonePruningService {
+
+    // Walks the primary key, which roughly follows deleted_at, so the oldest tombstones come first
+    private static final String PRUNE_SQL = """
+            WITH pruned AS (
+                DELETE FROM t_credential_tombstone
+                WHERE id IN (SELECT id FROM t_credential_tombstone WHERE deleted_at < ?
+                             ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+                RETURNING user_id, vault_version
+            ), pruned_user AS (
+                SELECT user_id, max(vault_version) AS vault_version FROM pruned GROUP BY user_id
+            ), marked AS (
+                UPDATE t_user u SET tombstones_pruned_version = GREATEST(u.tombstones_pruned_version, p.vault_version)
+                FROM pruned_user p WHERE u.id = p.user_id
+            )
+            SELECT count(*) FROM pruned""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter prunedTombstones;
+
+    @Value("${app.vault.tombstones.prune-enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.vault.tombstones.retention:90d}")
+    private Duration retention;
+
+    @Value("${app.vault.tombstones.prune-interval:1h}")
+    private Duration pruneInterval;
+
+    @Value("${app.vault.tombstones.chunk-size:1000}")
+    private int chunkSize;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public TombstonePruningService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.prunedTombstones = Counter.builder("securepass.vault.tombstones.pruned")
+                .description("Credential tombstones deleted after the retention period")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "tombstone-pruning");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Deletes every tombstone older than the retention period, one chunk at a time.
+     *
+     * @return the number of tombstones deleted
+     */
+    public long pruneExpired() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        long total = 0;
+        int pruned;
+        do {
+            Integer count = jdbcTemplate.queryForObject(PRUNE_SQL, Integer.class, cutoff, chunkSize);
+            pruned = count != null ? count : 0;
+            total += pruned;
+            prunedTombstones.increment(pruned);
+        } while (pruned == chunkSize && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                long pruned = pruneExpired();
+                if (pruned > 0) {
+                    log.info("🧹 Pruned {} credential tombstones older than {}", pruned, retention);
+                }
+            } catch (RuntimeException e) {
+                log.error("❌ Tombstone pruning failed; retrying in {}", pruneInterval, e);
+            }
+            try {
+                Thread.sleep(pruneInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
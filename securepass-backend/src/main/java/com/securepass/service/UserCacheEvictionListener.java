@@ -0,0 +1,25 @@
+package com.securepass.service;
+
+import com.securepass.entity.User;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener that drops deleted users from the {@link UserExistenceCache}.
+ * The cache is looked up lazily because listeners are created while the EntityManagerFactory boots.
+ */
+@Component
+public class UserCacheEvictionListener {
+
+    private final ObjectProvider<UserExistenceCache> userExistenceCache;
+
+    public UserCacheEvictionListener(ObjectProvider<UserExistenceCache> userExistenceCache) {
+        this.userExistenceCache = userExistenceCache;
+    }
+
+    @PostRemove
+    public void onUserRemoved(User user) {
+        userExistenceCache.ifAvailable(cache -> cache.evict(user.getId()));
+    }
+}
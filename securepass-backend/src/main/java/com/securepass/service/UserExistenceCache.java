@@ -0,0 +1,61 @@
+package com.securepass.service;
+
+import com.securepass.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which user ids were recently confirmed to exist, so authenticated
+ * requests don't need a database round trip each time.
+ * Only positive answers are cached; deleted users are evicted via {@link UserCacheEvictionListener}.
+ */
+@Slf4j
+@Component
+public class UserExistenceCache {
+
+    private final UserRepository userRepository;
+    // user id -> time (ms) after which the entry must be re-checked
+    private final Map<Long, Long> confirmedUntil = new ConcurrentHashMap<>();
+
+    @Value("${app.auth.user-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${app.auth.user-cache.max-size:10000}")
+    private int maxSize;
+
+    public UserExistenceCache(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public boolean exists(Long userId) {
+        long now = System.currentTimeMillis();
+        Long until = confirmedUntil.get(userId);
+        if (until != null && until > now) {
+            return true;
+        }
+
+        boolean exists = userRepository.existsById(userId);
+        if (exists) {
+            if (confirmedUntil.size() >= maxSize) {
+                confirmedUntil.values().removeIf(expiry -> expiry <= now);
+                if (confirmedUntil.size() >= maxSize) {
+                    confirmedUntil.clear();
+                }
+            }
+            confirmedUntil.put(userId, now + ttlSeconds * 1000);
+        } else {
+            confirmedUntil.remove(userId);
+        }
+        return exists;
+    }
+
+    public void evict(Long userId) {
+        if (confirmedUntil.remove(userId) != null) {
+            log.debug("Evicted user ID {} from existence cache", userId);
+        }
+    }
+}
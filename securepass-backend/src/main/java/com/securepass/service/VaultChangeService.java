@@ -0,0 +1,193 @@
+package com.securepass.service;
+
+import com.securepass.dto.UpsertResult;
+import com.securepass.entity.Credential;
+import com.securepass.entity.CredentialTombstone;
+import com.securepass.repository.CredentialRepository;
+import com.securepass.repository.CredentialTombstoneRepository;
+import com.securepass.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single write path for credentials. Every mutation takes the next version of the user's vault,
+ * stamps it on the rows it touches (or on a tombstone for deletes), so clients can ask for
+ * everything that changed after the version they last saw.
+ * Once the transaction commits, the user's cached rows on this instance are dropped; other
+ * instances notice the new version on their next read.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VaultChangeService {
+
+    // Postgres allows 32767 bind parameters per statement; 5 per row plus 2 stays far below that
+    private static final int UPSERT_ROWS_PER_STATEMENT = 1000;
+
+    // Every row brings an id from the entity's own generator (see nextIds); rows that end up as
+    // updates leave theirs unused. An existing site/username pair only takes the new password
+    // if its fingerprint differs; unchanged rows are left alone and not returned.
+    private static final String UPSERT_SQL_PREFIX =
+            "WITH input (id, site, username, password, fingerprint) AS (VALUES ";
+    private static final String UPSERT_SQL_SUFFIX = ") " +
+            "INSERT INTO t_credential AS c (id, user_id, site, username, password, fingerprint, vault_version, updated_at) " +
+            "SELECT input.id, ?, input.site, input.username, input.password, input.fingerprint, ?, now() FROM input " +
+            "ON CONFLICT (user_id, site, username) DO UPDATE SET password = EXCLUDED.password, " +
+            "fingerprint = EXCLUDED.fingerprint, vault_version = EXCLUDED.vault_version, updated_at = EXCLUDED.updated_at " +
+            "WHERE c.fingerprint IS DISTINCT FROM EXCLUDED.fingerprint " +
+            "RETURNING c.xmax = 0 AS inserted";
+
+    private final CredentialRepository credentialRepo;
+    private final CredentialTombstoneRepository tombstoneRepo;
+    private final UserRepository userRepo;
+    private final CredentialCache credentialCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Transactional
+    public Credential save(Long userId, Credential credential) {
+        credential.setVaultVersion(nextVersion(userId));
+        return credentialRepo.save(credential);
+    }
+
+    /**
+     * Saves credentials keyed on site and username: new pairs are inserted, existing ones take the new
+     * password, and pairs already stored with the same password (same fingerprint) are left alone.
+     * A pair repeated within the list counts once, with its last occurrence. Runs one statement per
+     * {@value #UPSERT_ROWS_PER_STATEMENT} rows under one new vault version. The credentials need site,
+     * username, password and fingerprint set. Joins the caller's transaction if there is one.
+     */
+    @Transactional
+    public UpsertResult upsertAll(Long userId, List<Credential> credentials) {
+        // ON CONFLICT may not touch the same row twice in one statement, so only the last occurrence is kept
+        Map<SiteAccount, Credential> unique = new LinkedHashMap<>();
+        for (Credential credential : credentials) {
+            unique.put(new SiteAccount(credential.getSite(), credential.getUsername()), credential);
+        }
+        UpsertResult result = new UpsertResult(0, 0, credentials.size() - unique.size());
+        if (unique.isEmpty()) {
+            return result;
+        }
+
+        long version = nextVersion(userId);
+        List<Credential> rows = new ArrayList<>(unique.values());
+        for (int from = 0; from < rows.size(); from += UPSERT_ROWS_PER_STATEMENT) {
+            List<Credential> statementRows = rows.subList(from, Math.min(rows.size(), from + UPSERT_ROWS_PER_STATEMENT));
+            long[] ids = nextIds(statementRows.size());
+            int[] counts = new int[2];  // inserted, updated
+            jdbcTemplate.query(upsertSql(statementRows.size()), ps -> {
+                int index = 1;
+                for (int i = 0; i < statementRows.size(); i++) {
+                    Credential credential = statementRows.get(i);
+                    ps.setLong(index++, ids[i]);
+                    ps.setString(index++, credential.getSite());
+                    ps.setString(index++, credential.getUsername());
+                    ps.setBytes(index++, credential.getPassword());
+                    ps.setBytes(index++, credential.getFingerprint());
+                }
+                ps.setLong(index++, userId);
+                ps.setLong(index, version);
+            }, rs -> {
+                counts[rs.getBoolean(1) ? 0 : 1]++;
+            });
+            result.setInserted(result.getInserted() + counts[0]);
+            result.setUpdated(result.getUpdated() + counts[1]);
+            result.setSkipped(result.getSkipped() + statementRows.size() - counts[0] - counts[1]);
+        }
+        return result;
+    }
+
+    // Ids from Hibernate's pooled optimizer for Credential itself, so they never collide with ids it hands
+    // out for entity inserts, and follow its rules for a fresh sequence (whose first value is 1, not a block end)
+    private long[] nextIds(int count) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Credential.class).getGenerator();
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = ((Number) generator.generate(session, null)).longValue();
+        }
+        return ids;
+    }
+
+    private static String upsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(UPSERT_SQL_PREFIX.length() + rows * 18 + UPSERT_SQL_SUFFIX.length());
+        sql.append(UPSERT_SQL_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        }
+        return sql.append(UPSERT_SQL_SUFFIX).toString();
+    }
+
+    @Transactional
+    public void delete(Long userId, Credential credential) {
+        long version = nextVersion(userId);
+        credentialRepo.delete(credential);
+        tombstoneRepo.save(CredentialTombstone.builder()
+                .userId(userId)
+                .credentialId(credential.getId())
+                .vaultVersion(version)
+                .deletedAt(Instant.now())
+                .build());
+    }
+
+    /**
+     * Everything that changed after {@code since}, consistent as of the returned version:
+     * changes committed while this runs are left for the next call. If tombstones the caller
+     * needs have been pruned (see {@link TombstonePruningService}), nothing is returned but
+     * {@link VaultChanges#resyncRequired()}: the caller starts over from version 0.
+     */
+    @Transactional(readOnly = true)
+    public VaultChanges changesSince(Long userId, long since) {
+        long version = userRepo.findVaultVersionById(userId);
+        if (since < 0 || since > version) {
+            throw new IllegalArgumentException(
+                    "Invalid request: since must be between 0 and the current vault version (" + version + ")");
+        }
+        if (since == version) {
+            return new VaultChanges(version, List.of(), List.of(), false);
+        }
+        List<Credential> changed = credentialRepo.findChanged(userId, since, version);
+        List<Long> deletedIds = tombstoneRepo.findDeletedIds(userId, since, version);
+        // Read after the tombstones: a prune that committed before they were read is seen here.
+        // Version 0 needs no tombstones, the caller has nothing to delete yet.
+        if (since > 0 && since < userRepo.findTombstonesPrunedVersionById(userId)) {
+            return new VaultChanges(version, List.of(), List.of(), true);
+        }
+        return new VaultChanges(version, changed, deletedIds, false);
+    }
+
+    // The version bump row-locks the user until commit, so one vault's mutations commit in version order
+    // and a reader that sees version N has also seen every change up to N
+    private long nextVersion(Long userId) {
+        userRepo.incrementVaultVersion(userId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                credentialCache.evict(userId);
+            }
+        });
+        return userRepo.findVaultVersionById(userId);
+    }
+
+    // Unique key of a credential within a vault; username may be null
+    private record SiteAccount(String site, String username) {
+    }
+
+    public record VaultChanges(long version, List<Credential> changed, List<Long> deletedIds, boolean resyncRequired) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.securepass.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securepass.entity.Credential;
+import com.securepass.repository.CredentialRepository;
+import com.securepass.util.AesEncryptionUtil;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.SecretKey;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a user's vault straight from a database cursor, so memory use
+ * does not grow with the number of credentials.
+ * <p>
+ * Callers fetch the data key (see {@link DataKeyService#forUser}) first: creating one on first
+ * use needs a second connection, which must not be taken while the cursor holds one.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VaultStreamingService {
+
+    private static final int FLUSH_INTERVAL = 100;
+
+    public enum ExportFormat { JSON, NDJSON, CSV }
+
+    private final CredentialRepository credentialRepo;
+    private final CredentialDecryptionService decryptionService;
+    private final AesEncryptionUtil aesUtil;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes the vault listing (same shape as GET /vault) as a JSON array.
+     *
+     * @return number of credentials written
+     */
+    @Transactional(readOnly = true)
+    public int writeJson(Long userId, SecretKey dataKey, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            int count = forEachCredential(userId, generator::flush,
+                    cred -> generator.writeObject(decryptionService.toResponse(cred, dataKey)));
+            generator.writeEndArray();
+            return count;
+        }
+    }
+
+    /**
+     * Writes an export in the same site/username/password layout the web client produces:
+     * JSON as an array (what the web client imports), NDJSON as one object per line and CSV
+     * with a header row (both what POST /vault/import reads). Rows that cannot be decrypted
+     * are left out rather than exported with a placeholder password.
+     *
+     * @return number of credentials written
+     */
+    @Transactional(readOnly = true)
+    public int writeExport(Long userId, SecretKey dataKey, ExportFormat format, OutputStream out) throws IOException {
+        int[] skipped = {0};
+        int count;
+        if (format == ExportFormat.JSON) {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                count = forEachCredential(userId, generator::flush, cred -> {
+                    String password = decryptForExport(cred, dataKey, skipped);
+                    if (password != null) {
+                        writeExportEntry(generator, cred, password);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        } else if (format == ExportFormat.NDJSON) {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Each object ends its own line instead of being separated by a space
+                generator.setRootValueSeparator(null);
+                count = forEachCredential(userId, generator::flush, cred -> {
+                    String password = decryptForExport(cred, dataKey, skipped);
+                    if (password != null) {
+                        writeExportEntry(generator, cred, password);
+                        generator.writeRaw('\n');
+                    }
+                });
+            }
+        } else {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            // BOM for Excel compatibility, matching the client-side export
+            writer.write('\uFEFF');
+            writer.write("Site,Username,Password\n");
+            count = forEachCredential(userId, writer::flush, cred -> {
+                String password = decryptForExport(cred, dataKey, skipped);
+                if (password != null) {
+                    writer.write(csvCell(cred.getSite()));
+                    writer.write(',');
+                    writer.write(csvCell(cred.getUsername()));
+                    writer.write(',');
+                    writer.write(csvCell(password));
+                    writer.write('\n');
+                }
+            });
+            writer.flush();
+        }
+
+        if (skipped[0] > 0) {
+            log.warn("⚠️ Export for user ID {} skipped {} credentials that could not be decrypted", userId, skipped[0]);
+        }
+        return count - skipped[0];
+    }
+
+    private static void writeExportEntry(JsonGenerator generator, Credential cred, String password) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("site", nullToEmpty(cred.getSite()));
+        generator.writeStringField("username", nullToEmpty(cred.getUsername()));
+        generator.writeStringField("password", password);
+        generator.writeEndObject();
+    }
+
+    private int forEachCredential(Long userId, Flusher flusher, RowWriter rowWriter) throws IOException {
+        int count = 0;
+        try (Stream<Credential> rows = credentialRepo.streamByUserId(userId)) {
+            Iterator<Credential> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Credential cred = iterator.next();
+                rowWriter.write(cred);
+                // Drop the row from the persistence context so it can be collected
+                entityManager.detach(cred);
+
+                if (++count % FLUSH_INTERVAL == 0) {
+                    flusher.flush();
+                }
+            }
+        }
+        return count;
+    }
+
+    private String decryptForExport(Credential cred, SecretKey dataKey, int[] skipped) {
+        try {
+            return aesUtil.decrypt(cred.getPassword(), dataKey);
+        } catch (Exception e) {
+            log.error("❌ Failed to decrypt credential ID {} for export: {}", cred.getId(), e.getMessage());
+            skipped[0]++;
+            return null;
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    // Quote cells containing a comma, quote or line break; double embedded quotes
+    private static String csvCell(String value) {
+        String cell = nullToEmpty(value);
+        if (cell.indexOf(',') < 0 && cell.indexOf('"') < 0 && cell.indexOf('\n') < 0 && cell.indexOf('\r') < 0) {
+            return cell;
+        }
+        return '"' + cell.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Credential cred) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Flusher {
+        void flush() throws IOException;
+    }
+}
@@ -1,17 +1,31 @@
 package com.securepass.util;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 @Slf4j
 @Component
@@ -21,16 +35,58 @@ public class AesEncryptionUtil {
     private static final int GCM_IV_LENGTH = 12; // 12 bytes for GCM
     private static final int GCM_TAG_LENGTH = 16; // 16 bytes for authentication tag
     private static final int KEY_LENGTH = 32; // 256 bits for AES-256
+    private static final int CIPHER_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    // Wrapped data keys are text, "k<keyId>:" + Base64(IV + data), naming the master key that wrapped them.
+    private static final char KEY_ID_PREFIX = 'k';
+    // Credentials are stored binary: a format byte, then IV + data. Data-key values are FORMAT_DATA_KEY + IV + data;
+    // values from before envelope encryption are FORMAT_MASTER_KEY + key id byte + IV + data.
+    private static final byte FORMAT_DATA_KEY = 1;
+    private static final byte FORMAT_MASTER_KEY = 2;
+    private static final int DATA_KEY_LENGTH = 32;
+    private static final String FINGERPRINT_ALGORITHM = "HmacSHA256";
+    // Derives the fingerprint key from a data key, so the data key itself is only ever used for AES
+    private static final byte[] FINGERPRINT_KEY_LABEL = "securepass-fingerprint-v1".getBytes(StandardCharsets.UTF_8);
+    private static final char KEY_ID_SEPARATOR = ':';  // Never part of the Base64 alphabet
+    private static final int LEGACY_KEY_ID = 0;
+    private static final int MAX_KEY_ID = 255;
 
     @Value("${aes.secret-key}")
     private String secretKeyString;
 
+    @Value("${aes.active-key-id:0}")
+    private int activeKeyId;
+
     private final Environment environment;
-    private SecretKeySpec secretKey;
+    // Key 0 is aes.secret-key; further keys come from aes.keys.<id>
+    private final Map<Integer, SecretKeySpec> keysById = new HashMap<>();
+    private SecretKeySpec activeKey;
+    private String activeKeyHeader;
     private final SecureRandom secureRandom = new SecureRandom();
+    // Idle cipher engines; Cipher.getInstance is a provider lookup, far too costly to repeat per value
+    private final BlockingQueue<Cipher> cipherPool = new ArrayBlockingQueue<>(CIPHER_POOL_SIZE);
+
+    private final Timer encryptTimer;
+    private final Timer decryptTimer;
+    private final Timer encryptAllTimer;
+    private final Timer decryptAllTimer;
+    private final Counter decryptionErrors;
 
-    public AesEncryptionUtil(Environment environment) {
+    public AesEncryptionUtil(Environment environment, MeterRegistry meterRegistry) {
         this.environment = environment;
+        this.encryptTimer = cryptoTimer(meterRegistry, "encrypt");
+        this.decryptTimer = cryptoTimer(meterRegistry, "decrypt");
+        this.encryptAllTimer = cryptoTimer(meterRegistry, "encrypt_all");
+        this.decryptAllTimer = cryptoTimer(meterRegistry, "decrypt_all");
+        this.decryptionErrors = Counter.builder("securepass.crypto.decryption.errors")
+                .description("Values that could not be decrypted")
+                .register(meterRegistry);
+    }
+
+    private static Timer cryptoTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("securepass.crypto")
+                .description("AES-GCM operation time; batch operations are timed per call")
+                .tag("operation", operation)
+                .register(meterRegistry);
     }
 
     @PostConstruct
@@ -52,103 +108,393 @@ public class AesEncryptionUtil {
             }
         }
 
-        byte[] keyBytes = secretKeyString.getBytes();
+        keysById.put(LEGACY_KEY_ID, toKey("AES_SECRET_KEY", secretKeyString));
+        Map<Integer, String> additionalKeys = Binder.get(environment)
+                .bind("aes.keys", Bindable.mapOf(Integer.class, String.class))
+                .orElse(Map.of());
+        additionalKeys.forEach((id, secret) -> {
+            if (id <= LEGACY_KEY_ID || id > MAX_KEY_ID) {
+                throw new IllegalStateException(String.format(
+                    "AES key ids must be between 1 and %d (got %d); key 0 is AES_SECRET_KEY", MAX_KEY_ID, id));
+            }
+            keysById.put(id, toKey("AES key " + id, secret));
+        });
+
+        this.activeKey = keysById.get(activeKeyId);
+        if (activeKey == null) {
+            throw new IllegalStateException(String.format(
+                "aes.active-key-id is %d but no such key is configured (known ids: %s)", activeKeyId, keysById.keySet()));
+        }
+        this.activeKeyHeader = String.valueOf(KEY_ID_PREFIX) + activeKeyId + KEY_ID_SEPARATOR;
+        log.info("✅ AES encryption initialized with {}-bit key {} active ({} keys available for decryption)",
+                activeKey.getEncoded().length * 8, activeKeyId, keysById.size());
+    }
+
+    private static SecretKeySpec toKey(String name, String secret) {
+        byte[] keyBytes = secret.getBytes();
         if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
             throw new IllegalStateException(
-                String.format("AES_SECRET_KEY must be 16, 24, or 32 bytes (got %d bytes). " +
-                    "For AES-256, use a 32-byte (256-bit) key.", keyBytes.length)
+                String.format("%s must be 16, 24, or 32 bytes (got %d bytes). " +
+                    "For AES-256, use a 32-byte (256-bit) key.", name, keyBytes.length)
             );
         }
+        return new SecretKeySpec(keyBytes, "AES");
+    }
 
-        this.secretKey = new SecretKeySpec(keyBytes, "AES");
-        log.info("✅ AES encryption initialized with {}-bit key", keyBytes.length * 8);
+    public int getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    /**
+     * Id of the master key a value was encrypted with, read from its header without decrypting.
+     */
+    public int keyIdOf(String encrypted) {
+        int separator = encrypted.indexOf(KEY_ID_SEPARATOR);
+        if (separator < 2 || encrypted.charAt(0) != KEY_ID_PREFIX) {
+            return LEGACY_KEY_ID;
+        }
+        try {
+            return Integer.parseInt(encrypted, 1, separator, 10);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Encrypted value has a malformed key id header", e);
+        }
+    }
+
+    /**
+     * True when a wrapped data key was not wrapped with the active master key.
+     */
+    public boolean needsRewrap(String wrappedKey) {
+        return keyIdOf(wrappedKey) != activeKeyId;
+    }
+
+    /**
+     * True when a stored credential value is encrypted with its owner's data key rather than directly with a master key.
+     */
+    public boolean isDataKeyEncrypted(byte[] encrypted) {
+        return encrypted.length > 0 && encrypted[0] == FORMAT_DATA_KEY;
+    }
+
+    /**
+     * Generates a fresh random AES-256 data key.
+     */
+    public SecretKeySpec newDataKey() {
+        byte[] keyBytes = new byte[DATA_KEY_LENGTH];
+        secureRandom.nextBytes(keyBytes);
+        return new SecretKeySpec(keyBytes, "AES");
+    }
+
+    /**
+     * Encrypts a data key with the active master key, for storage next to its user.
+     */
+    public String wrapKey(SecretKey dataKey) {
+        try {
+            Cipher cipher = borrowCipher();
+            byte[] wrapped = encryptWith(cipher, activeKey, dataKey.getEncoded(), 0);
+            releaseCipher(cipher);
+            return activeKeyHeader + Base64.getEncoder().encodeToString(wrapped);
+        } catch (GeneralSecurityException e) {
+            log.error("Data key wrapping failed", e);
+            throw new RuntimeException("Data key wrapping failed", e);
+        }
     }
 
-    public String encrypt(String raw) {
+    public SecretKeySpec unwrapKey(String wrappedKey) {
+        try {
+            int keyId = keyIdOf(wrappedKey);
+            // Header-less values have no separator, so their payload starts at 0
+            byte[] decoded = Base64.getDecoder().decode(wrappedKey.substring(wrappedKey.indexOf(KEY_ID_SEPARATOR) + 1));
+            Cipher cipher = borrowCipher();
+            byte[] keyBytes = decryptWith(cipher, masterKey(keyId), decoded, 0);
+            releaseCipher(cipher);
+            return new SecretKeySpec(keyBytes, "AES");
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw translateDecryptionFailure(e);
+        }
+    }
+
+    /**
+     * Encrypts a credential value with its owner's data key.
+     *
+     * @return the value as stored: format byte + IV + ciphertext
+     */
+    public byte[] encrypt(String raw, SecretKey dataKey) {
+        Timer.Sample sample = Timer.start();
         try {
             if (raw == null) {
                 throw new IllegalArgumentException("Cannot encrypt null value");
             }
 
-            // Generate random IV for each encryption
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            secureRandom.nextBytes(iv);
+            Cipher cipher = borrowCipher();
+            byte[] encrypted = encryptWith(cipher, dataKey, raw.getBytes(StandardCharsets.UTF_8), 1);
+            encrypted[0] = FORMAT_DATA_KEY;
+            releaseCipher(cipher);
+            return encrypted;
+        } catch (Exception e) {
+            log.error("Encryption failed", e);
+            throw new RuntimeException("Encryption failed", e);
+        } finally {
+            sample.stop(encryptTimer);
+        }
+    }
 
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
+    /**
+     * Encrypts every value with a single cipher engine and the owner's data key. Output order matches input order.
+     *
+     * @param raws plaintext values, none of which may be null
+     * @return format byte + IV + ciphertext for each input value
+     */
+    public List<byte[]> encryptAll(List<String> raws, SecretKey dataKey) {
+        List<byte[]> results = new ArrayList<>(raws.size());
+        Timer.Sample sample = Timer.start();
+        try {
+            Cipher cipher = borrowCipher();
+            for (String raw : raws) {
+                if (raw == null) {
+                    throw new IllegalArgumentException("Cannot encrypt null value");
+                }
+                byte[] encrypted = encryptWith(cipher, dataKey, raw.getBytes(StandardCharsets.UTF_8), 1);
+                encrypted[0] = FORMAT_DATA_KEY;
+                results.add(encrypted);
+            }
+            releaseCipher(cipher);
+            return results;
+        } catch (Exception e) {
+            log.error("Batch encryption failed at item {}", results.size(), e);
+            throw new RuntimeException("Encryption failed", e);
+        } finally {
+            sample.stop(encryptAllTimer);
+        }
+    }
 
-            byte[] encrypted = cipher.doFinal(raw.getBytes("UTF-8"));
+    /**
+     * Keyed fingerprint of a credential value for password-reuse detection: HMAC-SHA256 under a key derived
+     * from the owner's data key. Equal passwords in one vault get equal fingerprints; fingerprints of
+     * different users cannot be compared, and none can be checked against a guess without the data key.
+     */
+    public byte[] fingerprint(String raw, SecretKey dataKey) {
+        return fingerprintAll(List.of(raw), dataKey).get(0);
+    }
 
-            // Prepend IV to encrypted data: IV (12 bytes) + encrypted data
-            ByteBuffer byteBuffer = ByteBuffer.allocate(iv.length + encrypted.length);
-            byteBuffer.put(iv);
-            byteBuffer.put(encrypted);
+    /**
+     * Fingerprints every value with a single derived key. Output order matches input order.
+     */
+    public List<byte[]> fingerprintAll(List<String> raws, SecretKey dataKey) {
+        try {
+            Mac mac = Mac.getInstance(FINGERPRINT_ALGORITHM);
+            mac.init(new SecretKeySpec(dataKey.getEncoded(), FINGERPRINT_ALGORITHM));
+            mac.init(new SecretKeySpec(mac.doFinal(FINGERPRINT_KEY_LABEL), FINGERPRINT_ALGORITHM));
+            List<byte[]> results = new ArrayList<>(raws.size());
+            for (String raw : raws) {
+                if (raw == null) {
+                    throw new IllegalArgumentException("Cannot fingerprint null value");
+                }
+                results.add(mac.doFinal(raw.getBytes(StandardCharsets.UTF_8)));
+            }
+            return results;
+        } catch (GeneralSecurityException e) {
+            log.error("Fingerprinting failed", e);
+            throw new RuntimeException("Fingerprinting failed", e);
+        }
+    }
 
-            return Base64.getEncoder().encodeToString(byteBuffer.array());
+    /**
+     * Decrypts a stored credential value. Values from before envelope encryption are still decrypted with the
+     * master key named in their header.
+     *
+     * @param dataKey the owner's data key
+     */
+    public String decrypt(byte[] encrypted, SecretKey dataKey) {
+        Timer.Sample sample = Timer.start();
+        try {
+            Cipher cipher = borrowCipher();
+            String decrypted = decryptValue(cipher, encrypted, dataKey, null);
+            releaseCipher(cipher);
+            return decrypted;
+        } catch (IllegalArgumentException e) {
+            decryptionErrors.increment();
+            // Re-throw with original message
+            throw e;
         } catch (Exception e) {
-            log.error("Encryption failed", e);
-            throw new RuntimeException("Encryption failed", e);
+            decryptionErrors.increment();
+            throw translateDecryptionFailure(e);
+        } finally {
+            sample.stop(decryptTimer);
         }
     }
 
-    public String decrypt(String encryptedBase64) {
+    /**
+     * Decrypts every value with a single cipher engine and a shared plaintext buffer.
+     * Fails on the first value that cannot be decrypted, exactly like {@link #decrypt(byte[], SecretKey)}.
+     *
+     * @param encryptedValues values of one user, as stored
+     * @param dataKey the owner's data key
+     * @return plaintext for each input value, in input order
+     */
+    public List<String> decryptAll(List<byte[]> encryptedValues, SecretKey dataKey) {
+        List<String> results = new ArrayList<>(encryptedValues.size());
+        Timer.Sample sample = Timer.start();
         try {
-            if (encryptedBase64 == null || encryptedBase64.trim().isEmpty()) {
-                throw new IllegalArgumentException("Cannot decrypt null or empty value");
+            Cipher cipher = borrowCipher();
+            PlaintextBuffer buffer = new PlaintextBuffer();
+            for (byte[] encryptedValue : encryptedValues) {
+                results.add(decryptValue(cipher, encryptedValue, dataKey, buffer));
             }
+            releaseCipher(cipher);
+            return results;
+        } catch (IllegalArgumentException e) {
+            decryptionErrors.increment();
+            throw e;
+        } catch (Exception e) {
+            decryptionErrors.increment();
+            throw translateDecryptionFailure(e);
+        } finally {
+            sample.stop(decryptAllTimer);
+        }
+    }
 
-            byte[] decoded = Base64.getDecoder().decode(encryptedBase64);
+    // Returns header space + IV + ciphertext; the caller fills in the first headerLength bytes
+    private byte[] encryptWith(Cipher cipher, SecretKey key, byte[] plaintext, int headerLength) throws GeneralSecurityException {
+        // Generate random IV for each encryption
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        secureRandom.nextBytes(iv);
 
-            // Check if data is too short (likely old encryption format without IV)
-            if (decoded.length < GCM_IV_LENGTH) {
-                throw new IllegalArgumentException(
-                    "Encrypted data format is incompatible. This credential was encrypted with an old encryption method. " +
-                    "Please delete and re-add this credential to use the new secure encryption."
-                );
+        // Output layout: header + IV (12 bytes) + encrypted data, written into a single array
+        int ivOffset = headerLength;
+        byte[] output = new byte[ivOffset + GCM_IV_LENGTH + plaintext.length + GCM_TAG_LENGTH];
+        System.arraycopy(iv, 0, output, ivOffset, GCM_IV_LENGTH);
+
+        GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
+        cipher.init(Cipher.ENCRYPT_MODE, key, parameterSpec);
+        cipher.doFinal(plaintext, 0, plaintext.length, output, ivOffset + GCM_IV_LENGTH);
+        return output;
+    }
+
+    private String decryptValue(Cipher cipher, byte[] encrypted, SecretKey dataKey, PlaintextBuffer buffer) throws GeneralSecurityException {
+        if (encrypted == null || encrypted.length == 0) {
+            throw new IllegalArgumentException("Cannot decrypt null or empty value");
+        }
+
+        SecretKey key;
+        int ivOffset;
+        if (encrypted[0] == FORMAT_DATA_KEY) {
+            if (dataKey == null) {
+                throw new IllegalArgumentException("Value is encrypted with a data key, but none was provided");
             }
+            key = dataKey;
+            ivOffset = 1;
+        } else if (encrypted[0] == FORMAT_MASTER_KEY && encrypted.length > 1) {
+            key = masterKey(encrypted[1] & 0xFF);
+            ivOffset = 2;
+        } else {
+            // Values the binary migration could not parse are kept as-is behind an unknown format byte
+            throw incompatibleFormat();
+        }
+
+        if (buffer == null) {
+            return new String(decryptWith(cipher, key, encrypted, ivOffset), StandardCharsets.UTF_8);
+        }
+        byte[] out = buffer.ensureCapacity(Math.max(0, encrypted.length - ivOffset - GCM_IV_LENGTH));
+        int length = decryptInto(cipher, key, encrypted, ivOffset, out);
+        return new String(out, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Decrypts IV + ciphertext starting at ivOffset straight from the stored bytes
+    private byte[] decryptWith(Cipher cipher, SecretKey key, byte[] encrypted, int ivOffset) throws GeneralSecurityException {
+        initDecrypt(cipher, key, encrypted, ivOffset);
+        int dataOffset = ivOffset + GCM_IV_LENGTH;
+        return cipher.doFinal(encrypted, dataOffset, encrypted.length - dataOffset);
+    }
+
+    private int decryptInto(Cipher cipher, SecretKey key, byte[] encrypted, int ivOffset, byte[] out) throws GeneralSecurityException {
+        initDecrypt(cipher, key, encrypted, ivOffset);
+        int dataOffset = ivOffset + GCM_IV_LENGTH;
+        return cipher.doFinal(encrypted, dataOffset, encrypted.length - dataOffset, out, 0);
+    }
 
-            // Extract IV from the beginning
-            ByteBuffer byteBuffer = ByteBuffer.wrap(decoded);
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            byteBuffer.get(iv);
+    private void initDecrypt(Cipher cipher, SecretKey key, byte[] encrypted, int ivOffset) throws GeneralSecurityException {
+        // Check if data is too short (likely old encryption format without IV)
+        if (encrypted.length < ivOffset + GCM_IV_LENGTH) {
+            throw incompatibleFormat();
+        }
+        // IV is read in place from the stored value
+        GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, encrypted, ivOffset, GCM_IV_LENGTH);
+        cipher.init(Cipher.DECRYPT_MODE, key, parameterSpec);
+    }
 
-            byte[] encrypted = new byte[byteBuffer.remaining()];
-            byteBuffer.get(encrypted);
+    private SecretKey masterKey(int keyId) {
+        SecretKey key = keysById.get(keyId);
+        if (key == null) {
+            throw new IllegalArgumentException(
+                "Encrypted with key " + keyId + ", which is not configured. Add it to aes.keys to decrypt this value."
+            );
+        }
+        return key;
+    }
 
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
+    private static IllegalArgumentException incompatibleFormat() {
+        return new IllegalArgumentException(
+            "Encrypted data format is incompatible. This credential was encrypted with an old encryption method. " +
+            "Please delete and re-add this credential to use the new secure encryption."
+        );
+    }
 
-            byte[] decrypted = cipher.doFinal(encrypted);
-            return new String(decrypted, "UTF-8");
-        } catch (javax.crypto.AEADBadTagException e) {
+    private RuntimeException translateDecryptionFailure(Exception e) {
+        if (e instanceof javax.crypto.AEADBadTagException) {
             log.error("Decryption failed - Tag mismatch. This credential was encrypted with an old encryption method.", e);
-            throw new RuntimeException(
+            return new RuntimeException(
                 "This credential was encrypted with an old encryption method and cannot be decrypted. " +
                 "Please delete and re-add this credential to use the new secure encryption.", e
             );
-        } catch (java.security.ProviderException e) {
+        }
+        if (e instanceof java.security.ProviderException) {
             // ShortBufferException occurs when trying to decrypt old format (no IV)
             log.error("Decryption failed - Invalid buffer. This credential was encrypted with an old encryption method.", e);
-            throw new RuntimeException(
+            return new RuntimeException(
                 "This credential was encrypted with an old encryption method and cannot be decrypted. " +
                 "Please delete and re-add this credential to use the new secure encryption.", e
             );
-        } catch (IllegalArgumentException e) {
-            // Re-throw with original message
-            throw e;
-        } catch (Exception e) {
-            log.error("Decryption failed", e);
-            // Check if it's a crypto-related exception that might indicate old format
-            if (e.getCause() instanceof javax.crypto.ShortBufferException || 
-                e.getCause() instanceof javax.crypto.AEADBadTagException) {
-                throw new RuntimeException(
-                    "This credential was encrypted with an old encryption method and cannot be decrypted. " +
-                    "Please delete and re-add this credential to use the new secure encryption.", e
-                );
+        }
+        log.error("Decryption failed", e);
+        // Check if it's a crypto-related exception that might indicate old format
+        if (e.getCause() instanceof javax.crypto.ShortBufferException ||
+            e.getCause() instanceof javax.crypto.AEADBadTagException) {
+            return new RuntimeException(
+                "This credential was encrypted with an old encryption method and cannot be decrypted. " +
+                "Please delete and re-add this credential to use the new secure encryption.", e
+            );
+        }
+        return new RuntimeException("Decryption failed: " + e.getMessage(), e);
+    }
+
+    /**
+     * Takes an idle cipher engine from the pool, creating one if the pool is empty.
+     * Engines are re-initialized with a fresh IV on every use, so they carry no state between callers.
+     */
+    private Cipher borrowCipher() throws GeneralSecurityException {
+        Cipher cipher = cipherPool.poll();
+        return cipher != null ? cipher : Cipher.getInstance(ALGORITHM);
+    }
+
+    /**
+     * Returns an engine after successful use. Engines that hit an error are simply dropped.
+     */
+    private void releaseCipher(Cipher cipher) {
+        cipherPool.offer(cipher);
+    }
+
+    /**
+     * Growable plaintext buffer shared across the items of a batch decrypt.
+     */
+    private static final class PlaintextBuffer {
+        private byte[] bytes = new byte[256];
+
+        byte[] ensureCapacity(int size) {
+            if (bytes.length < size) {
+                bytes = new byte[Math.max(size, bytes.length * 2)];
             }
-            throw new RuntimeException("Decryption failed: " + e.getMessage(), e);
+            return bytes;
         }
     }
 }
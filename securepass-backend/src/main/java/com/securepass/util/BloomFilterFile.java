@@ -0,0 +1,165 @@
+package com.securepass.util;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Bloom filter over SHA-1 digests, stored in a file and memory-mapped, so lookups read a few
+ * bytes straight from the page cache and every process on the host shares the same pages.
+ * <p>
+ * Layout: a 24 byte header (magic, version, hash count, unused, bit count) followed by the bit
+ * array, bit {@code i} being bit {@code i % 8} of byte {@code i / 8}. The k bit positions come
+ * from double hashing over the digest itself (h1 + i * h2), so no further hashing is needed.
+ * Files are written by {@link BreachedPasswordFilterBuilder}.
+ */
+public final class BloomFilterFile {
+
+    public static final int DIGEST_LENGTH = 20;  // SHA-1
+
+    private static final int MAGIC = 0x53504246;  // "SPBF"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 24;
+    private static final int MAX_HASH_COUNT = 30;
+    // Mapped in 1 GiB segments: a single MappedByteBuffer cannot exceed 2 GiB
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final MappedByteBuffer[] segments;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilterFile(MappedByteBuffer[] segments, long bitCount, int hashCount) {
+        this.segments = segments;
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Maps an existing filter read-only.
+     */
+    public static BloomFilterFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_LENGTH) {
+                throw new IOException(path + " is not a Bloom filter file (too short)");
+            }
+            MappedByteBuffer[] segments = map(channel, FileChannel.MapMode.READ_ONLY, size);
+            MappedByteBuffer header = segments[0];
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(path + " is not a version " + VERSION + " Bloom filter file");
+            }
+            int hashCount = header.getInt(8);
+            long bitCount = header.getLong(16);
+            if (hashCount < 1 || hashCount > MAX_HASH_COUNT || bitCount < 1 || size != fileLength(bitCount)) {
+                throw new IOException(path + " has a corrupt Bloom filter header");
+            }
+            // The mapping stays valid after the channel is closed
+            return new BloomFilterFile(segments, bitCount, hashCount);
+        }
+    }
+
+    /**
+     * Creates an empty filter sized for {@code expectedEntries} at the given false positive rate,
+     * mapped read-write for {@link #put}.
+     */
+    public static BloomFilterFile create(Path path, long expectedEntries, double falsePositiveRate) throws IOException {
+        if (expectedEntries < 1 || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Need at least one entry and a false positive rate between 0 and 1");
+        }
+        double ln2 = Math.log(2);
+        long bitCount = Math.max(64, (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        int hashCount = (int) Math.max(1, Math.min(MAX_HASH_COUNT, Math.round((double) bitCount / expectedEntries * ln2)));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] segments = map(channel, FileChannel.MapMode.READ_WRITE, fileLength(bitCount));
+            MappedByteBuffer header = segments[0];
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, hashCount);
+            header.putInt(12, 0);
+            header.putLong(16, bitCount);
+            return new BloomFilterFile(segments, bitCount, hashCount);
+        }
+    }
+
+    private static long fileLength(long bitCount) {
+        return HEADER_LENGTH + (bitCount + 7) / 8;
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        int count = (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        MappedByteBuffer[] segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long offset = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(mode, offset, Math.min(SEGMENT_MASK + 1, size - offset));
+            segments[i].order(ByteOrder.BIG_ENDIAN);
+        }
+        return segments;
+    }
+
+    /**
+     * @param digest SHA-1 of the value
+     * @return false if the value is certainly not in the set; true if it probably is
+     */
+    public boolean mightContain(byte[] digest) {
+        long h1 = readLong(digest, 0);
+        long h2 = readLong(digest, 8) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            long byteIndex = HEADER_LENGTH + (bit >>> 3);
+            if ((segment(byteIndex).get((int) (byteIndex & SEGMENT_MASK)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a SHA-1 digest; only valid on a filter from {@link #create}.
+     */
+    public void put(byte[] digest) {
+        long h1 = readLong(digest, 0);
+        long h2 = readLong(digest, 8) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            long byteIndex = HEADER_LENGTH + (bit >>> 3);
+            MappedByteBuffer segment = segment(byteIndex);
+            int offset = (int) (byteIndex & SEGMENT_MASK);
+            segment.put(offset, (byte) (segment.get(offset) | (1 << (bit & 7))));
+        }
+    }
+
+    /**
+     * Writes changes made through {@link #put} to the file.
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private MappedByteBuffer segment(long byteIndex) {
+        return segments[(int) (byteIndex >>> SEGMENT_SHIFT)];
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
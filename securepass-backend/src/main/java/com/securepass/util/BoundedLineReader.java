@@ -0,0 +1,68 @@
+package com.securepass.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads lines like {@link java.io.BufferedReader#readLine()}, but keeps at most a maximum number
+ * of characters of each, so input without line breaks is never read into one String. The rest
+ * of a longer line is read past without being kept (see {@link #isOversized()}).
+ */
+public class BoundedLineReader {
+
+    private final Reader reader;
+    private final int maxLength;
+    private int pushback = -2; // -2 = nothing pushed back
+    private boolean oversized;
+
+    /**
+     * @param reader read one character at a time, so it should be buffered
+     */
+    public BoundedLineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return the next line without its terminator (\n, \r\n or \r), or null at end of input
+     */
+    public String next() throws IOException {
+        oversized = false;
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        while (c != -1 && c != '\n' && c != '\r') {
+            if (line.length() < maxLength) {
+                line.append((char) c);
+            } else {
+                oversized = true;
+            }
+            c = read();
+        }
+        if (c == '\r') {
+            int following = read();
+            if (following != '\n') {
+                pushback = following;
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * @return true if the line last returned by {@link #next()} was longer than the maximum and is cut short
+     */
+    public boolean isOversized() {
+        return oversized;
+    }
+
+    private int read() throws IOException {
+        if (pushback != -2) {
+            int c = pushback;
+            pushback = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,110 @@
+package com.securepass.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Offline tool that builds the breached-password Bloom filter read by
+ * {@link com.securepass.service.BreachedPasswordService}. Needs nothing but the compiled classes:
+ * <pre>
+ * java -cp target/classes com.securepass.util.BreachedPasswordFilterBuilder \
+ *     pwned-passwords-sha1.txt breached-passwords.bf [--fpp 0.001] [--plaintext]
+ * </pre>
+ * The corpus has one entry per line: a SHA-1 hex digest, optionally followed by ":count" (the
+ * Have I Been Pwned download format), or with --plaintext a password to be hashed. The filter is
+ * written next to the output and then moved over it in one step, so a running server never
+ * maps a half-written file and picks up the new one on its next reload check.
+ */
+public final class BreachedPasswordFilterBuilder {
+
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+    private static final long PROGRESS_INTERVAL = 10_000_000;
+
+    private BreachedPasswordFilterBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException, NoSuchAlgorithmException {
+        if (args.length < 2) {
+            System.err.println("Usage: BreachedPasswordFilterBuilder <corpus> <output> [--fpp 0.001] [--plaintext]");
+            System.exit(2);
+        }
+        Path corpus = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+        double falsePositiveRate = DEFAULT_FALSE_POSITIVE_RATE;
+        boolean plaintext = false;
+        for (int i = 2; i < args.length; i++) {
+            if ("--fpp".equals(args[i]) && i + 1 < args.length) {
+                falsePositiveRate = Double.parseDouble(args[++i]);
+            } else if ("--plaintext".equals(args[i])) {
+                plaintext = true;
+            } else {
+                System.err.println("Unknown option: " + args[i]);
+                System.exit(2);
+            }
+        }
+
+        // First pass only counts, so the filter can be sized before anything is written
+        long entries = 0;
+        try (BufferedReader reader = Files.newBufferedReader(corpus, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    entries++;
+                }
+            }
+        }
+        if (entries == 0) {
+            System.err.println("Corpus " + corpus + " is empty");
+            System.exit(1);
+        }
+
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        BloomFilterFile filter = BloomFilterFile.create(temp, entries, falsePositiveRate);
+        System.out.printf("Building filter for %,d entries: %,d bits (%,d MB), %d hashes, target false positive rate %s%n",
+                entries, filter.getBitCount(), filter.getBitCount() / 8 / 1024 / 1024, filter.getHashCount(), falsePositiveRate);
+
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        HexFormat hex = HexFormat.of();
+        long added = 0;
+        long skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(corpus, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                byte[] digest;
+                if (plaintext) {
+                    digest = sha1.digest(line.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    int end = line.indexOf(':');
+                    String digestHex = (end < 0 ? line : line.substring(0, end)).trim();
+                    if (digestHex.length() != BloomFilterFile.DIGEST_LENGTH * 2) {
+                        skipped++;
+                        continue;
+                    }
+                    try {
+                        digest = hex.parseHex(digestHex);
+                    } catch (IllegalArgumentException e) {
+                        skipped++;
+                        continue;
+                    }
+                }
+                filter.put(digest);
+                if (++added % PROGRESS_INTERVAL == 0) {
+                    System.out.printf("%,d / %,d%n", added, entries);
+                }
+            }
+        }
+        filter.force();
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.printf("Wrote %s: %,d entries added, %,d malformed lines skipped%n", output, added, skipped);
+    }
+}
@@ -0,0 +1,146 @@
+package com.securepass.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: comma separated, double-quote escaping,
+ * quoted fields may span lines. Reads one record at a time so large files are never buffered.
+ * Fields and field counts beyond the configured maximum are read past without being kept (see
+ * {@link #isOversized()}), so neither a huge field nor an unclosed quote is held in memory.
+ */
+public class CsvRecordReader {
+
+    private static final int BOM = '\uFEFF';
+
+    private final Reader reader;
+    private final int maxFieldLength;
+    private final int maxFields;
+    private int pushback = -2; // -2 = nothing pushed back
+    private long recordNumber;
+    private boolean started;
+    private boolean oversized;
+
+    public CsvRecordReader(Reader reader) {
+        this(reader, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    public CsvRecordReader(Reader reader, int maxFieldLength, int maxFields) {
+        this.reader = reader;
+        this.maxFieldLength = maxFieldLength;
+        this.maxFields = maxFields;
+    }
+
+    /**
+     * @return the 1-based number of the record last returned by {@link #next()}
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * @return true if the record last returned by {@link #next()} had a field longer than the maximum
+     * field length or more fields than the maximum; it is then incomplete and should be rejected
+     */
+    public boolean isOversized() {
+        return oversized;
+    }
+
+    /**
+     * @return the fields of the next record, or null at end of input. Blank lines are skipped.
+     */
+    public List<String> next() throws IOException {
+        if (!started) {
+            started = true;
+            int first = read();
+            if (first != BOM) {
+                pushback = first;
+            }
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean sawContent = false;
+        oversized = false;
+
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (!sawContent && fields.isEmpty()) {
+                    return null;
+                }
+                addField(fields, field);
+                recordNumber++;
+                return fields;
+            }
+
+            if (inQuotes) {
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        append(field, '"');
+                    } else {
+                        inQuotes = false;
+                        pushback = following;
+                    }
+                } else {
+                    append(field, c);
+                }
+                continue;
+            }
+
+            if (c == '"') {
+                inQuotes = true;
+                sawContent = true;
+            } else if (c == ',') {
+                addField(fields, field);
+                field.setLength(0);
+                sawContent = true;
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pushback = following;
+                    }
+                }
+                if (!sawContent && fields.isEmpty()) {
+                    continue; // blank line
+                }
+                addField(fields, field);
+                recordNumber++;
+                return fields;
+            } else {
+                append(field, c);
+                sawContent = true;
+            }
+        }
+    }
+
+    private void append(StringBuilder field, int c) {
+        if (field.length() < maxFieldLength) {
+            field.append((char) c);
+        } else {
+            oversized = true;
+        }
+    }
+
+    private void addField(List<String> fields, StringBuilder field) {
+        if (fields.size() < maxFields) {
+            fields.add(field.toString());
+        } else {
+            oversized = true;
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushback != -2) {
+            int c = pushback;
+            pushback = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
@@ -2,35 +2,26 @@ package com.securepass.util;
 
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Pattern;
-
 /**
  * Utility class for sanitizing user inputs to prevent XSS attacks
  */
 @Component
 public class InputSanitizer {
 
-    // Pattern to detect potentially dangerous HTML/script tags
-    private static final Pattern SCRIPT_PATTERN = Pattern.compile(
-        "<script[^>]*>.*?</script>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL
-    );
-    
-    private static final Pattern HTML_TAG_PATTERN = Pattern.compile(
-        "<[^>]+>", Pattern.CASE_INSENSITIVE
-    );
-    
-    private static final Pattern JAVASCRIPT_PATTERN = Pattern.compile(
-        "javascript:", Pattern.CASE_INSENSITIVE
-    );
-    
-    private static final Pattern ON_EVENT_PATTERN = Pattern.compile(
-        "on\\w+\\s*=", Pattern.CASE_INSENSITIVE
-    );
+    private static final int MIN_USERNAME_LENGTH = 3;
+    private static final int MAX_USERNAME_LENGTH = 50;
 
     /**
      * Sanitizes a string by removing potentially dangerous HTML/script content
      * This is a basic sanitization - for production, consider using OWASP Java HTML Sanitizer
-     * 
+     * <p>
+     * Removes, in this order, the same text the original regular expressions did:
+     * {@code <script[^>]*>.*?</script>}, {@code <[^>]+>}, {@code javascript:} and {@code on\w+\s*=}
+     * (all ASCII case-insensitive), then trims. Each step runs on the previous step's output, since a
+     * removal can join text into a new match (e.g. {@code java<b></b>script:}). A step only runs if its
+     * first character ('<', ':' or '=') occurs in the input; removals never add one, so plain input
+     * is returned as is without allocating.
+     *
      * @param input The input string to sanitize
      * @return Sanitized string
      */
@@ -38,30 +29,183 @@ public class InputSanitizer {
         if (input == null) {
             return null;
         }
-        
-        String sanitized = input;
-        
-        // Remove script tags
-        sanitized = SCRIPT_PATTERN.matcher(sanitized).replaceAll("");
-        
-        // Remove HTML tags
-        sanitized = HTML_TAG_PATTERN.matcher(sanitized).replaceAll("");
-        
-        // Remove javascript: protocol
-        sanitized = JAVASCRIPT_PATTERN.matcher(sanitized).replaceAll("");
-        
-        // Remove event handlers (onclick, onerror, etc.)
-        sanitized = ON_EVENT_PATTERN.matcher(sanitized).replaceAll("");
-        
-        // Trim whitespace
-        sanitized = sanitized.trim();
-        
-        return sanitized;
+
+        boolean hasTag = false;
+        boolean hasColon = false;
+        boolean hasEquals = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '<') {
+                hasTag = true;
+            } else if (c == ':') {
+                hasColon = true;
+            } else if (c == '=') {
+                hasEquals = true;
+            }
+        }
+        if (!hasTag && !hasColon && !hasEquals) {
+            return input.trim();
+        }
+
+        char[] chars = input.toCharArray();
+        int length = chars.length;
+        if (hasTag) {
+            // Remove script tags
+            length = removeScripts(chars, length);
+            // Remove HTML tags
+            length = removeTags(chars, length);
+        }
+        if (hasColon) {
+            // Remove javascript: protocol
+            length = removeJavascriptProtocol(chars, length);
+        }
+        if (hasEquals) {
+            // Remove event handlers (onclick, onerror, etc.)
+            length = removeEventHandlers(chars, length);
+        }
+
+        // Trim whitespace, as String.trim does
+        int start = 0;
+        int end = length;
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+        if (start == 0 && end == input.length()) {
+            return input;
+        }
+        return new String(chars, start, end - start);
+    }
+
+    // Each step compacts chars[0, length) in place and returns the new length. Matches are only
+    // searched at or after the read position, which the write position never passes.
+
+    // <script[^>]*>.*?</script>: the first '>' after "<script", then the first "</script>" after that
+    private static int removeScripts(char[] chars, int length) {
+        int write = 0;
+        int read = 0;
+        boolean possible = true;
+        while (read < length) {
+            if (possible && chars[read] == '<' && regionMatches(chars, read + 1, length, "script")) {
+                int open = indexOf(chars, '>', read + 7, length);
+                int close = open < 0 ? -1 : indexOf(chars, "</script>", open + 1, length);
+                if (close >= 0) {
+                    read = close + 9;
+                    continue;
+                }
+                // Any later "<script" would look for the same '>' or "</script>" further on
+                possible = false;
+            }
+            chars[write++] = chars[read++];
+        }
+        return write;
+    }
+
+    // <[^>]+>: a '<' not directly followed by '>', up to the next '>'
+    private static int removeTags(char[] chars, int length) {
+        int write = 0;
+        int read = 0;
+        boolean possible = true;
+        while (read < length) {
+            if (possible && chars[read] == '<' && read + 1 < length && chars[read + 1] != '>') {
+                int close = indexOf(chars, '>', read + 2, length);
+                if (close >= 0) {
+                    read = close + 1;
+                    continue;
+                }
+                possible = false;
+            }
+            chars[write++] = chars[read++];
+        }
+        return write;
+    }
+
+    private static int removeJavascriptProtocol(char[] chars, int length) {
+        int write = 0;
+        int read = 0;
+        while (read < length) {
+            if (regionMatches(chars, read, length, "javascript:")) {
+                read += 11;
+                continue;
+            }
+            chars[write++] = chars[read++];
+        }
+        return write;
+    }
+
+    // on\w+\s*=: only the longest word run can be followed by whitespace or '=', so no backtracking is needed
+    private static int removeEventHandlers(char[] chars, int length) {
+        int write = 0;
+        int read = 0;
+        while (read < length) {
+            if (regionMatches(chars, read, length, "on")) {
+                int end = read + 2;
+                while (end < length && isWordChar(chars[end])) {
+                    end++;
+                }
+                if (end > read + 2) {
+                    while (end < length && isWhitespace(chars[end])) {
+                        end++;
+                    }
+                    if (end < length && chars[end] == '=') {
+                        read = end + 1;
+                        continue;
+                    }
+                }
+            }
+            chars[write++] = chars[read++];
+        }
+        return write;
+    }
+
+    // ASCII case-insensitive, like Pattern.CASE_INSENSITIVE without UNICODE_CASE; lower is lower case
+    private static boolean regionMatches(char[] chars, int from, int length, String lower) {
+        if (length - from < lower.length()) {
+            return false;
+        }
+        for (int i = 0; i < lower.length(); i++) {
+            char c = chars[from + i];
+            char expected = lower.charAt(i);
+            if (c != expected && !(expected >= 'a' && expected <= 'z' && c == expected - ('a' - 'A'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(char[] chars, char target, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (chars[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(char[] chars, String lower, int from, int length) {
+        for (int i = from; i <= length - lower.length(); i++) {
+            if (regionMatches(chars, i, length, lower)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Regex \w without UNICODE_CHARACTER_CLASS
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    // Regex \s without UNICODE_CHARACTER_CLASS
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     /**
      * Trims whitespace from a string
-     * 
+     *
      * @param input The input string to trim
      * @return Trimmed string, or null if input is null
      */
@@ -71,17 +215,21 @@ public class InputSanitizer {
 
     /**
      * Validates username format (alphanumeric, underscore, hyphen, 3-50 chars)
-     * 
+     *
      * @param username The username to validate
      * @return true if valid, false otherwise
      */
     public boolean isValidUsername(String username) {
-        if (username == null || username.isEmpty()) {
+        if (username == null || username.length() < MIN_USERNAME_LENGTH || username.length() > MAX_USERNAME_LENGTH) {
             return false;
         }
         // Allow alphanumeric, underscore, hyphen, dot
-        // Length 3-50 characters
-        return username.matches("^[a-zA-Z0-9._-]{3,50}$");
+        for (int i = 0; i < username.length(); i++) {
+            char c = username.charAt(i);
+            if (!isWordChar(c) && c != '.' && c != '-') {
+                return false;
+            }
+        }
+        return true;
     }
 }
-
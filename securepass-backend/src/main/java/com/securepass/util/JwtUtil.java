@@ -3,6 +3,9 @@ package com.securepass.util;
 import com.securepass.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,6 +14,8 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
@@ -24,11 +29,36 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private long jwtExpirationInMs;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
     private final Environment environment;
     private Key key;
+    private JwtParser parser;
+    // Tokens whose signature already checked out, keyed by the exact token string
+    private final Map<String, Claims> verifiedTokens = new ConcurrentHashMap<>();
+
+    private final Timer generateTimer;
+    private final Timer verifyTimer;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
 
-    public JwtUtil(Environment environment) {
+    public JwtUtil(Environment environment, MeterRegistry meterRegistry) {
         this.environment = environment;
+        this.generateTimer = Timer.builder("securepass.jwt")
+                .description("JWT signing and signature verification time")
+                .tag("operation", "generate")
+                .register(meterRegistry);
+        this.verifyTimer = Timer.builder("securepass.jwt")
+                .description("JWT signing and signature verification time")
+                .tag("operation", "verify")
+                .register(meterRegistry);
+        this.cacheHits = Counter.builder("securepass.jwt.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("securepass.jwt.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
     }
 
     @PostConstruct
@@ -59,6 +89,7 @@ public class JwtUtil {
 
         try {
             this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes("UTF-8"));
+            this.parser = Jwts.parserBuilder().setSigningKey(key).build();
             log.info("✅ JWT utility initialized with {}-bit secret key", jwtSecret.length() * 8);
         } catch (Exception e) {
             throw new IllegalStateException("Failed to initialize JWT key", e);
@@ -69,27 +100,72 @@ public class JwtUtil {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
-        return Jwts.builder()
+        return generateTimer.record(() -> Jwts.builder()
                 .setSubject(user.getUsername())
                 .claim("userId", user.getId())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+                .compact());
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifies the token signature and expiry, at most once per token while it stays cached.
+     *
+     * @param token compact JWS string
+     * @return the verified claims, or null if the token is malformed, tampered with or expired
+     */
+    public Claims verifyToken(String token) {
+        long now = System.currentTimeMillis();
+        Claims cached = verifiedTokens.get(token);
+        if (cached != null) {
+            if (cached.getExpiration().getTime() > now) {
+                cacheHits.increment();
+                return cached;
+            }
+            // Expired since it was cached: a miss, and no need to parse it again to reject it
+            cacheMisses.increment();
+            verifiedTokens.remove(token);
+            return null;
+        }
+        cacheMisses.increment();
+
+        Claims claims;
+        Timer.Sample sample = Timer.start();
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
+            claims = parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
+        } finally {
+            sample.stop(verifyTimer);
+        }
+
+        if (claims.getExpiration() != null) {
+            cacheVerified(token, claims, now);
         }
+        return claims;
+    }
+
+    public boolean validateToken(String token) {
+        return verifyToken(token) != null;
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody();
+        Claims claims = verifyToken(token);
+        if (claims == null) {
+            throw new JwtException("Invalid or expired token");
+        }
         return claims.get("userId", Long.class);
     }
+
+    private void cacheVerified(String token, Claims claims, long now) {
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            verifiedTokens.values().removeIf(c -> c.getExpiration().getTime() <= now);
+            // Still full of live tokens: start over rather than track recency on every hit
+            if (verifiedTokens.size() >= verifiedCacheSize) {
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(token, claims);
+    }
 }
@@ -0,0 +1,19 @@
+package com.securepass.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Documented
+@Constraint(validatedBy = NotBreachedValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface NotBreached {
+    String message() default "This password has appeared in a data breach. Please choose a different password";
+    Class<?>[] groups() default {};
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,23 @@
+package com.securepass.validation;
+
+import com.securepass.service.BreachedPasswordService;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Created by Spring's constraint validator factory, which injects the service.
+ */
+public class NotBreachedValidator implements ConstraintValidator<NotBreached, String> {
+
+    private final BreachedPasswordService breachedPasswordService;
+
+    public NotBreachedValidator(BreachedPasswordService breachedPasswordService) {
+        this.breachedPasswordService = breachedPasswordService;
+    }
+
+    @Override
+    public boolean isValid(String password, ConstraintValidatorContext context) {
+        // Null and empty passwords are reported by @NotBlank
+        return password == null || !breachedPasswordService.isBreached(password);
+    }
+}
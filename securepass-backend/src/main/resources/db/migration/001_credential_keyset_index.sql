@@ -0,0 +1,3 @@
+-- Keyset pagination for GET /vault?after=&limit=
+-- Lets "user_id = ? AND id > ? ORDER BY id LIMIT ?" read the page straight from the index
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_id_id ON t_credential (user_id, id);
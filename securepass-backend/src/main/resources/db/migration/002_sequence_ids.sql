@@ -0,0 +1,17 @@
+-- Switch t_credential and t_user from IDENTITY to pooled sequences (allocationSize = 50)
+-- so Hibernate can batch inserts. INCREMENT BY must match ID_ALLOCATION_SIZE in the entities.
+-- Run in a maintenance window: inserts must not happen between the setval and the new deployment.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS t_credential_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS t_user_seq INCREMENT BY 50;
+
+-- The pooled optimizer hands out (value - 49 .. value), so start one full block above the current max id
+SELECT setval('t_credential_seq', COALESCE((SELECT MAX(id) FROM t_credential), 0) + 50, true);
+SELECT setval('t_user_seq', COALESCE((SELECT MAX(id) FROM t_user), 0) + 50, true);
+
+ALTER TABLE t_credential ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE t_user ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+COMMIT;
@@ -0,0 +1,12 @@
+-- Server-side search for GET /vault/search?q=
+-- Trigram GIN indexes let "lower(site) LIKE '%term%'" (substring and prefix) use an index
+-- instead of scanning every credential. Terms shorter than 3 characters fall back to the
+-- user_id indexes, which only cover one user's rows anyway.
+-- pg_trgm ships with PostgreSQL; creating the extension needs a role with CREATE on the database.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_credential_site_trgm
+    ON t_credential USING gin (lower(site) gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_credential_username_trgm
+    ON t_credential USING gin (lower(username) gin_trgm_ops);
@@ -0,0 +1,28 @@
+-- Delta sync for GET /vault/changes?since=
+-- Every vault mutation bumps t_user.vault_version and stamps it on the rows it touches.
+-- Existing users and credentials start at version 1, so "since=0" returns the whole vault.
+-- Deletes leave a tombstone carrying the version of the delete.
+
+BEGIN;
+
+ALTER TABLE t_user ADD COLUMN IF NOT EXISTS vault_version BIGINT NOT NULL DEFAULT 1;
+
+ALTER TABLE t_credential ADD COLUMN IF NOT EXISTS vault_version BIGINT NOT NULL DEFAULT 1;
+ALTER TABLE t_credential ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6) WITH TIME ZONE DEFAULT now();
+
+CREATE SEQUENCE IF NOT EXISTS t_credential_tombstone_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS t_credential_tombstone (
+    id            BIGINT PRIMARY KEY,
+    user_id       BIGINT NOT NULL,
+    credential_id BIGINT NOT NULL,
+    vault_version BIGINT NOT NULL,
+    deleted_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_tombstone_user_vault_version ON t_credential_tombstone (user_id, vault_version);
+
+COMMIT;
+
+-- Outside the transaction: builds without blocking writes
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_vault_version ON t_credential (user_id, vault_version);
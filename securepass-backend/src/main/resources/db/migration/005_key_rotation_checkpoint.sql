@@ -0,0 +1,11 @@
+-- Progress of the background key rotation (app.key-rotation), one row per target key id,
+-- so re-encryption resumes after a restart instead of starting over.
+CREATE TABLE IF NOT EXISTS t_key_rotation_checkpoint (
+    target_key_id INTEGER PRIMARY KEY,
+    last_id       BIGINT NOT NULL,
+    scanned       BIGINT NOT NULL,
+    reencrypted   BIGINT NOT NULL,
+    failed        BIGINT NOT NULL,
+    completed     BOOLEAN NOT NULL,
+    updated_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
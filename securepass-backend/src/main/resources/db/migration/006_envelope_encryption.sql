@@ -0,0 +1,17 @@
+-- Envelope encryption: every user gets a random data key, stored wrapped by the active master
+-- key ("k<id>:" + Base64). Credentials encrypted with it carry a "d:" prefix; older rows keep
+-- working until the key rotation moves them over. Keys are created on first use, so there is
+-- nothing to backfill here.
+ALTER TABLE t_user ADD COLUMN IF NOT EXISTS data_key VARCHAR(255);
+
+-- The rotation now re-wraps data keys first, then converts rows still under a master key
+ALTER TABLE t_key_rotation_checkpoint ADD COLUMN IF NOT EXISTS last_user_id BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE t_key_rotation_checkpoint ADD COLUMN IF NOT EXISTS rewrapped BIGINT NOT NULL DEFAULT 0;
+-- Rotations that already finished still have rows to move to data keys
+UPDATE t_key_rotation_checkpoint SET last_id = 0, completed = false;
+
+-- Rows still encrypted directly with a master key; shrinks to nothing once the rotation is done.
+-- CONCURRENTLY cannot run inside a transaction block.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_credential_master_key
+    ON t_credential (id)
+    WHERE password NOT LIKE 'd:%';
@@ -0,0 +1,57 @@
+-- Stores credential ciphertext as bytea instead of Base64 text, about 25% smaller on disk and on the wire.
+-- Binary layout (see AesEncryptionUtil):
+--   0x01 + IV + ciphertext                 encrypted with the user's data key   (was "d:" + Base64)
+--   0x02 + key id byte + IV + ciphertext   encrypted with master key <id>       (was "k<id>:" + Base64, or bare Base64 for key 0)
+--   0x00 + original text                   not parseable; reported as undecryptable, as before
+--
+-- Stop the application first: earlier versions cannot read the new column.
+-- Run with psql in autocommit mode (not inside BEGIN): the conversion commits after every chunk,
+-- so locks and WAL stay small, and a rerun after an interruption continues where it stopped.
+
+ALTER TABLE t_credential ADD COLUMN IF NOT EXISTS password_bin BYTEA;
+
+CREATE OR REPLACE FUNCTION pg_temp.securepass_ciphertext(value TEXT) RETURNS BYTEA AS $$
+BEGIN
+    IF value LIKE 'd:%' THEN
+        RETURN '\x01'::bytea || decode(substr(value, 3), 'base64');
+    ELSIF value ~ '^k[0-9]{1,3}:' THEN
+        RETURN '\x02'::bytea
+            || set_byte('\x00'::bytea, 0, split_part(substr(value, 2), ':', 1)::int)
+            || decode(split_part(value, ':', 2), 'base64');
+    ELSE
+        RETURN '\x0200'::bytea || decode(value, 'base64');
+    END IF;
+EXCEPTION WHEN others THEN
+    RETURN '\x00'::bytea || convert_to(value, 'UTF8');
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+DO $$
+DECLARE
+    chunk_size CONSTANT BIGINT := 10000;
+    chunk_start BIGINT;
+    max_id BIGINT;
+BEGIN
+    SELECT coalesce(min(id), 0), coalesce(max(id), 0) INTO chunk_start, max_id
+        FROM t_credential WHERE password_bin IS NULL;
+    WHILE chunk_start <= max_id LOOP
+        UPDATE t_credential
+           SET password_bin = pg_temp.securepass_ciphertext(password)
+         WHERE id >= chunk_start AND id < chunk_start + chunk_size AND password_bin IS NULL;
+        COMMIT;
+        RAISE NOTICE 'Converted credentials up to ID % of %', least(chunk_start + chunk_size - 1, max_id), max_id;
+        chunk_start := chunk_start + chunk_size;
+    END LOOP;
+END $$;
+
+-- Swap the columns; this also drops the text-based idx_credential_master_key from 006
+BEGIN;
+ALTER TABLE t_credential DROP COLUMN password;
+ALTER TABLE t_credential RENAME COLUMN password_bin TO password;
+ALTER TABLE t_credential ALTER COLUMN password SET NOT NULL;
+COMMIT;
+
+-- Rows still encrypted directly with a master key, for the key rotation
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_credential_master_key
+    ON t_credential (id)
+    WHERE get_byte(password, 0) <> 1;
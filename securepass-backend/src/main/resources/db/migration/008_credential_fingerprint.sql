@@ -0,0 +1,14 @@
+-- Password fingerprints: a keyed HMAC of each password under its owner's data key, so reused
+-- passwords can be found without decrypting anything. New and updated rows get one on write;
+-- existing rows are filled in by the background FingerprintBackfillService, so the column
+-- stays nullable.
+ALTER TABLE t_credential ADD COLUMN IF NOT EXISTS fingerprint BYTEA;
+
+-- GET /vault/reuse groups a user's fingerprints. CONCURRENTLY cannot run inside a transaction block.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_fingerprint
+    ON t_credential (user_id, fingerprint);
+
+-- Rows the backfill still has to visit; shrinks to nothing once it is done
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_credential_missing_fingerprint
+    ON t_credential (id)
+    WHERE fingerprint IS NULL;
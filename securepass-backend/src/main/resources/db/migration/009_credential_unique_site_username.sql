@@ -0,0 +1,38 @@
+-- Requires PostgreSQL 15 or later: the index below is NULLS NOT DISTINCT, which older versions reject.
+--
+-- One credential per (user_id, site, username): POST /vault/batch and the streaming import
+-- upsert on this key (INSERT ... ON CONFLICT), so importing the same export again updates or
+-- skips instead of duplicating. NULLS NOT DISTINCT makes entries without a username collide too.
+
+-- Existing duplicates are removed first, keeping the most recently written row of each pair.
+-- Every affected vault gets a new version and a tombstone per removed row, so delta-sync
+-- clients (GET /vault/changes) drop them as well.
+BEGIN;
+
+CREATE TEMPORARY TABLE duplicate_credential ON COMMIT DROP AS
+SELECT id, user_id
+FROM (
+    SELECT id, user_id,
+           row_number() OVER (PARTITION BY user_id, site, username ORDER BY vault_version DESC, id DESC) AS row_rank
+    FROM t_credential
+) ranked
+WHERE row_rank > 1;
+
+UPDATE t_user SET vault_version = vault_version + 1
+WHERE id IN (SELECT user_id FROM duplicate_credential);
+
+-- A plain nextval per row never lands inside a block the application's pooled optimizer owns
+INSERT INTO t_credential_tombstone (id, user_id, credential_id, vault_version, deleted_at)
+SELECT nextval('t_credential_tombstone_seq'), d.user_id, d.id, u.vault_version, now()
+FROM duplicate_credential d
+JOIN t_user u ON u.id = d.user_id;
+
+DELETE FROM t_credential WHERE id IN (SELECT id FROM duplicate_credential);
+
+COMMIT;
+
+-- Outside the transaction: builds without blocking writes. Run it together with the deployment;
+-- if a duplicate slipped in meanwhile the build fails, leaving an INVALID index: drop it and rerun
+-- this file.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_credential_user_site_username
+    ON t_credential (user_id, site, username) NULLS NOT DISTINCT;
@@ -0,0 +1,5 @@
+-- Tombstones older than app.vault.tombstones.retention are pruned in the background.
+-- t_user.tombstones_pruned_version records the newest vault version whose tombstones may be
+-- gone: GET /vault/changes answers 410 to a since= below it, and the client resyncs from since=0.
+
+ALTER TABLE t_user ADD COLUMN IF NOT EXISTS tombstones_pruned_version BIGINT NOT NULL DEFAULT 0;
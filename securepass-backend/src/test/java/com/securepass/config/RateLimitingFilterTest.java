@@ -0,0 +1,124 @@
+package com.securepass.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RateLimitingFilterTest {
+
+    private static final int USERNAME_CAPACITY = 3;
+
+    private RateLimitingFilter filter;
+    private int nextIp;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties.Policy byIp = new RateLimitProperties.Policy();
+        byIp.setName("login-ip");
+        byIp.setPath("/auth/login");
+        byIp.setMethod("POST");
+        byIp.setCapacity(5);
+        byIp.setPeriod(Duration.ofHours(1));
+        RateLimitProperties.Policy byUsername = new RateLimitProperties.Policy();
+        byUsername.setName("login-username");
+        byUsername.setPath("/auth/login");
+        byUsername.setMethod("POST");
+        byUsername.setKey(RateLimitProperties.KeyType.USERNAME);
+        byUsername.setCapacity(USERNAME_CAPACITY);
+        byUsername.setPeriod(Duration.ofHours(1));
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPolicies(List.of(byIp, byUsername));
+
+        filter = new RateLimitingFilter(properties, new ObjectMapper(), new SimpleMeterRegistry());
+        filter.init();
+    }
+
+    @Test
+    void limitsByIp() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, login("10.0.0.1", "{\"username\":\"user" + i + "\"}").getStatus());
+        }
+        MockHttpServletResponse rejected = login("10.0.0.1", "{\"username\":\"other\"}");
+        assertEquals(429, rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+    }
+
+    @Test
+    void limitsOneAccountAcrossRotatingIps() throws Exception {
+        for (int i = 0; i < USERNAME_CAPACITY; i++) {
+            assertEquals(200, login(freshIp(), "{\"username\":\"alice\"}").getStatus());
+        }
+        // Case and surrounding whitespace do not make a new key
+        assertEquals(429, login(freshIp(), "{\"username\":\" ALICE \"}").getStatus());
+        assertEquals(200, login(freshIp(), "{\"username\":\"bob\"}").getStatus());
+    }
+
+    @Test
+    void paddedBodiesFromRotatingIpsShareOneBucket() throws Exception {
+        String padded = "{\"username\":\"alice\"," + " ".repeat(16 * 1024) + "\"password\":\"guess\"}";
+        for (int i = 0; i < USERNAME_CAPACITY; i++) {
+            assertEquals(200, login(freshIp(), padded).getStatus());
+        }
+        assertEquals(429, login(freshIp(), padded).getStatus());
+        assertEquals(429, login(freshIp(), "{not json").getStatus());
+        // Readable usernames keep their own buckets
+        assertEquals(200, login(freshIp(), "{\"username\":\"alice\"}").getStatus());
+    }
+
+    @Test
+    void replaysInspectedBodyToTheChain() throws Exception {
+        String body = "{\"username\":\"carol\",\"password\":\"" + "x".repeat(20_000) + "\"}";
+        MockHttpServletRequest request = request(freshIp(), body);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+        String replayed = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(body, replayed);
+    }
+
+    @Test
+    void ignoresOtherPaths() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = request("10.0.0.2", "{}");
+            request.setRequestURI("/auth/register");
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            assertNotNull(chain.getRequest());
+        }
+    }
+
+    private MockHttpServletResponse login(String ip, String body) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request(ip, body), response, chain);
+        if (response.getStatus() == 429) {
+            assertNull(chain.getRequest());
+        }
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String ip, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private String freshIp() {
+        nextIp++;
+        return "10.1." + (nextIp / 256) + "." + (nextIp % 256);
+    }
+}
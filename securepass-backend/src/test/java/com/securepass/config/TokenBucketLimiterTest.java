@@ -0,0 +1,41 @@
+package com.securepass.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTest {
+
+    // Long enough that nothing refills while a test runs
+    private static final Duration PERIOD = Duration.ofHours(1);
+
+    @Test
+    void allowsCapacityThenRejects() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, PERIOD, 100, Duration.ofMinutes(1));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("a"));
+        }
+        long wait = limiter.tryAcquire("a");
+        assertTrue(wait > 0 && wait <= PERIOD.toNanos() / 3, "wait: " + wait);
+        // Other keys are unaffected
+        assertEquals(0, limiter.tryAcquire("b"));
+    }
+
+    @Test
+    void floodOfNewKeysNeitherSharesABucketNorResetsHotKeys() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, PERIOD, 10, Duration.ofMinutes(1));
+        assertEquals(0, limiter.tryAcquire("target"));
+        assertEquals(0, limiter.tryAcquire("target"));
+        assertTrue(limiter.tryAcquire("target") > 0);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(0, limiter.tryAcquire("client-" + i), "client-" + i);
+        }
+        assertTrue(limiter.trackedKeys() <= 10, "tracked: " + limiter.trackedKeys());
+        // The exhausted bucket has the latest arrival time, so it is never the one evicted
+        assertTrue(limiter.tryAcquire("target") > 0);
+    }
+}
@@ -0,0 +1,36 @@
+package com.securepass.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void duplicateSiteAndUsernameIsAConflict() {
+        assertEquals(409, handler.handleDataIntegrityViolation(violation("uk_credential_user_site_username"))
+                .getStatusCode().value());
+        assertEquals(409, handler.handleDataIntegrityViolation(violation("PUBLIC.UK_CREDENTIAL_USER_SITE_USERNAME_INDEX_9"))
+                .getStatusCode().value());
+    }
+
+    @Test
+    void otherIntegrityViolationsAreServerErrors() {
+        assertEquals(500, handler.handleDataIntegrityViolation(violation("t_credential_user_id_fkey"))
+                .getStatusCode().value());
+        assertEquals(500, handler.handleDataIntegrityViolation(violation(null)).getStatusCode().value());
+        assertEquals(500, handler.handleDataIntegrityViolation(new DataIntegrityViolationException("no cause"))
+                .getStatusCode().value());
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException("violation"), constraintName));
+    }
+}
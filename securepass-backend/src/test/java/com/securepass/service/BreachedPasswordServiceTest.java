@@ -0,0 +1,85 @@
+package com.securepass.service;
+
+import com.securepass.util.BloomFilterFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BreachedPasswordServiceTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 200;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentFirstChecksAllUseTheFilter() throws Exception {
+        Path file = writeFilter(dir.resolve("breached.bf"), "hunter2");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            // The window between the first check claiming the load and finishing it is short; repeat to hit it
+            for (int round = 0; round < ROUNDS; round++) {
+                BreachedPasswordService service = newService(file);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return service.isBreached("hunter2");
+                    }));
+                }
+                start.countDown();
+                for (Future<Boolean> result : results) {
+                    assertTrue(result.get(), "a first check passed a breached password in round " + round);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void missingFilterIsPickedUpWithoutWaitingForTheReloadInterval() throws Exception {
+        Path file = dir.resolve("breached.bf");
+        BreachedPasswordService service = newService(file);
+        assertFalse(service.isBreached("hunter2"));
+
+        writeFilter(file, "hunter2");
+        assertTrue(service.isBreached("hunter2"));
+        assertFalse(service.isBreached("correct horse battery staple"));
+    }
+
+    private static BreachedPasswordService newService(Path file) {
+        BreachedPasswordService service = new BreachedPasswordService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "file", file.toString());
+        ReflectionTestUtils.setField(service, "reloadCheckInterval", Duration.ofHours(1));
+        return service;
+    }
+
+    private static Path writeFilter(Path file, String password) throws IOException, NoSuchAlgorithmException {
+        BloomFilterFile filter = BloomFilterFile.create(file, 1000, 0.001);
+        filter.put(MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8)));
+        filter.force();
+        return file;
+    }
+}
@@ -0,0 +1,167 @@
+package com.securepass.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securepass.dto.ImportResult;
+import com.securepass.dto.UpsertResult;
+import com.securepass.entity.Credential;
+import com.securepass.util.AesEncryptionUtil;
+import com.securepass.util.InputSanitizer;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CredentialImportServiceTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final VaultChangeService changeService = mock(VaultChangeService.class);
+    private final List<List<Credential>> chunks = new ArrayList<>();
+    private CredentialImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        AesEncryptionUtil aesUtil = mock(AesEncryptionUtil.class);
+        when(aesUtil.encryptAll(anyList(), any())).thenAnswer(call -> ((List<?>) call.getArgument(0)).stream()
+                .map(raw -> ((String) raw).getBytes(StandardCharsets.UTF_8)).toList());
+        when(aesUtil.fingerprintAll(anyList(), any())).thenAnswer(call -> ((List<?>) call.getArgument(0)).stream()
+                .map(raw -> new byte[32]).toList());
+        importService = new CredentialImportService(changeService, aesUtil, mock(DataKeyService.class),
+                new InputSanitizer(), Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper());
+        ReflectionTestUtils.setField(importService, "chunkSize", 2);
+        ReflectionTestUtils.setField(importService, "maxBytes", DataSize.ofMegabytes(1));
+    }
+
+    @Test
+    void failedChunkRejectsExactlyItsRows() throws Exception {
+        when(changeService.upsertAll(eq(USER_ID), anyList()))
+                .thenAnswer(call -> record(call.getArgument(1), new UpsertResult(2, 0, 0)))
+                .thenAnswer(call -> {
+                    record(call.getArgument(1), null);
+                    throw new DataAccessResourceFailureException("connection lost");
+                })
+                .thenAnswer(call -> record(call.getArgument(1), new UpsertResult(0, 0, 1)));
+
+        String ndjson = """
+                {"site":"a.com","username":"u","password":"1"}
+                {"site":"b.com","username":"u","password":"2"}
+                {"site":"","password":"3"}
+
+                {"site":"c.com","username":"u","password":"4"}
+                not json
+                {"site":"d.com","username":"u","password":"5"}
+                {"site":"e.com","username":"u","password":"6"}
+                """;
+        ImportResult result = importService.importNdjson(USER_ID, stream(ndjson));
+
+        assertEquals(3, chunks.size());
+        assertEquals(List.of(2, 2, 1), chunks.stream().map(List::size).toList());
+        assertEquals(3, result.getImported());
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getSkipped());
+        assertEquals(4, result.getFailed());
+        // Line numbers count blank lines; the failed chunk is rows 5 and 7
+        assertEquals(List.of(3L, 6L, 5L, 7L), result.getErrors().stream().map(ImportResult.RowError::getRow).toList());
+        assertEquals("Could not be saved", result.getErrors().get(2).getMessage());
+    }
+
+    @Test
+    void csvColumnsAreMatchedByHeaderAndRowsNumberedFromOne() throws Exception {
+        when(changeService.upsertAll(eq(USER_ID), anyList()))
+                .thenAnswer(call -> record(call.getArgument(1), new UpsertResult(((List<?>) call.getArgument(1)).size(), 0, 0)));
+
+        String csv = "\uFEFFPassword,Notes,SITE,username\r\n"
+                + "\"p,1\",\"multi\nline\",a.com,x\r\n"
+                + "2,,,y\r\n"
+                + "3,,<b>b.com</b>,\r\n";
+        ImportResult result = importService.importCsv(USER_ID, stream(csv));
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2L, result.getErrors().get(0).getRow());
+        Credential first = chunks.get(0).get(0);
+        assertEquals("a.com", first.getSite());
+        assertEquals("x", first.getUsername());
+        assertEquals("p,1", new String(first.getPassword(), StandardCharsets.UTF_8));
+        assertEquals("b.com", chunks.get(0).get(1).getSite());
+    }
+
+    @Test
+    void oversizedLinesAndUnclosedQuotesRejectTheirRowOnly() throws Exception {
+        when(changeService.upsertAll(eq(USER_ID), anyList()))
+                .thenAnswer(call -> record(call.getArgument(1), new UpsertResult(((List<?>) call.getArgument(1)).size(), 0, 0)));
+
+        String ndjson = "{\"site\":\"a.com\",\"password\":\"1\"}\n"
+                + "{\"site\":\"b.com\",\"password\":\"" + "x".repeat(100_000) + "\"}\n"
+                + "{\"site\":\"c.com\",\"password\":\"3\"}";
+        ImportResult result = importService.importNdjson(USER_ID, stream(ndjson));
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2L, result.getErrors().get(0).getRow());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Line exceeds"));
+
+        chunks.clear();
+        String csv = "site,password\na.com,1\nb.com,\"unclosed\n" + "c.com,3\n".repeat(20_000);
+        result = importService.importCsv(USER_ID, stream(csv));
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2L, result.getErrors().get(0).getRow());
+        assertEquals("a.com", chunks.get(0).get(0).getSite());
+    }
+
+    @Test
+    void importStopsAtTheByteLimitAndKeepsTheRowsBeforeIt() throws Exception {
+        when(changeService.upsertAll(eq(USER_ID), anyList()))
+                .thenAnswer(call -> record(call.getArgument(1), new UpsertResult(((List<?>) call.getArgument(1)).size(), 0, 0)));
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            ndjson.append("{\"site\":\"site").append(i).append(".com\",\"password\":\"p\"}\n");
+        }
+        int rowBytes = ndjson.length() / 10;
+
+        // Three and a half rows fit: the half row is dropped with the rest
+        ReflectionTestUtils.setField(importService, "maxBytes", DataSize.ofBytes(rowBytes * 3 + rowBytes / 2));
+        ImportResult result = importService.importNdjson(USER_ID, stream(ndjson.toString()));
+        assertTrue(result.isTruncated());
+        assertEquals(3, result.getImported());
+        assertEquals(0, result.getFailed());
+        assertEquals("site2.com", chunks.get(1).get(0).getSite());
+
+        chunks.clear();
+        ReflectionTestUtils.setField(importService, "maxBytes", DataSize.ofBytes(ndjson.length()));
+        result = importService.importNdjson(USER_ID, stream(ndjson.toString()));
+        assertFalse(result.isTruncated());
+        assertEquals(10, result.getImported());
+
+        // Header and two records are exactly 30 bytes
+        ReflectionTestUtils.setField(importService, "maxBytes", DataSize.ofBytes(30));
+        result = importService.importCsv(USER_ID, stream("site,password\na.com,1\nb.com,2\nc.com,3\n"));
+        assertTrue(result.isTruncated());
+        assertEquals(2, result.getImported());
+    }
+
+    private UpsertResult record(List<Credential> chunk, UpsertResult result) {
+        chunks.add(List.copyOf(chunk));
+        return result;
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
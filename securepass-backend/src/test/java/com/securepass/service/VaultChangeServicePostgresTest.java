@@ -0,0 +1,135 @@
+package com.securepass.service;
+
+import com.securepass.dto.UpsertResult;
+import com.securepass.entity.Credential;
+import com.securepass.entity.User;
+import com.securepass.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the upsert itself against PostgreSQL; skipped where Docker is not available. The schema
+ * comes from the entities, with the unique key replaced by the index migration 009 creates.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(VaultChangeService.class)
+class VaultChangeServicePostgresTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    @Autowired
+    private VaultChangeService changeService;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private CredentialCache credentialCache;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        // Hibernate creates a plain unique constraint, under which NULL usernames never collide.
+        // CONCURRENTLY cannot run inside the test's transaction, which rolls this back afterwards.
+        jdbcTemplate.execute("ALTER TABLE t_credential DROP CONSTRAINT uk_credential_user_site_username");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX uk_credential_user_site_username"
+                + " ON t_credential (user_id, site, username) NULLS NOT DISTINCT");
+        userId = userRepo.saveAndFlush(User.builder().username("alice").password("hash").build()).getId();
+    }
+
+    @Test
+    void newPairIsInserted() {
+        UpsertResult result = changeService.upsertAll(userId, List.of(credential("a.com", "alice", "one")));
+
+        assertEquals(new UpsertResult(1, 0, 0), result);
+        Map<String, Object> row = row("a.com", "alice");
+        assertArrayEquals(bytes("one"), (byte[]) row.get("password"));
+        assertEquals(userRepo.findVaultVersionById(userId), row.get("vault_version"));
+    }
+
+    @Test
+    void changedPasswordUpdatesTheRowInPlace() {
+        changeService.upsertAll(userId, List.of(credential("a.com", "alice", "one")));
+        Map<String, Object> before = row("a.com", "alice");
+
+        UpsertResult result = changeService.upsertAll(userId, List.of(credential("a.com", "alice", "two")));
+
+        assertEquals(new UpsertResult(0, 1, 0), result);
+        Map<String, Object> after = row("a.com", "alice");
+        assertEquals(before.get("id"), after.get("id"));
+        assertArrayEquals(bytes("two"), (byte[]) after.get("password"));
+        assertEquals((Long) before.get("vault_version") + 1, after.get("vault_version"));
+    }
+
+    @Test
+    void unchangedPasswordIsSkippedAndKeepsItsVersion() {
+        changeService.upsertAll(userId, List.of(credential("a.com", "alice", "one")));
+        Map<String, Object> before = row("a.com", "alice");
+
+        UpsertResult result = changeService.upsertAll(userId, List.of(credential("a.com", "alice", "one")));
+
+        assertEquals(new UpsertResult(0, 0, 1), result);
+        Map<String, Object> after = row("a.com", "alice");
+        assertEquals(before.get("id"), after.get("id"));
+        assertArrayEquals(bytes("one"), (byte[]) after.get("password"));
+        assertEquals(before.get("vault_version"), after.get("vault_version"));
+    }
+
+    @Test
+    void pairWithoutUsernameImportedTwiceIsStoredOnce() {
+        List<Credential> noUsername = List.of(credential("a.com", null, "one"), credential("b.com", null, "two"));
+        assertEquals(new UpsertResult(2, 0, 0), changeService.upsertAll(userId, noUsername));
+
+        UpsertResult result = changeService.upsertAll(userId,
+                List.of(credential("a.com", null, "one"), credential("b.com", null, "changed")));
+
+        assertEquals(new UpsertResult(0, 1, 1), result);
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM t_credential WHERE user_id = ? AND username IS NULL", Integer.class, userId));
+        assertArrayEquals(bytes("changed"), (byte[]) row("b.com", null).get("password"));
+    }
+
+    private Map<String, Object> row(String site, String username) {
+        return jdbcTemplate.queryForMap("SELECT id, password, vault_version FROM t_credential"
+                + " WHERE user_id = ? AND site = ? AND username IS NOT DISTINCT FROM ?", userId, site, username);
+    }
+
+    // The fingerprint stands in for the keyed hash of the password, so equal passwords get equal ones
+    private static Credential credential(String site, String username, String password) {
+        return Credential.builder()
+                .site(site)
+                .username(username)
+                .password(bytes(password))
+                .fingerprint(bytes("fingerprint:" + password))
+                .build();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
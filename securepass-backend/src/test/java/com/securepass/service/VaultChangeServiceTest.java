@@ -0,0 +1,99 @@
+package com.securepass.service;
+
+import com.securepass.entity.Credential;
+import com.securepass.entity.User;
+import com.securepass.repository.CredentialRepository;
+import com.securepass.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs against H2, which cannot execute the upsert itself (INSERT ... ON CONFLICT DO UPDATE), so
+ * the statement is captured and only the ids it would insert are checked. They come from the
+ * real t_credential_seq, which H2 creates fresh for every test run. VaultChangeServicePostgresTest
+ * runs the upsert itself.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import(VaultChangeService.class)
+class VaultChangeServiceTest {
+
+    @Autowired
+    private VaultChangeService changeService;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private CredentialRepository credentialRepo;
+
+    @MockitoBean
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private CredentialCache credentialCache;
+
+    @Test
+    void upsertIntoAnEmptySequenceStartsAtOneAndLeavesEntityIdsFree() throws SQLException {
+        User user = userRepo.save(User.builder().username("alice").password("hash").build());
+
+        changeService.upsertAll(user.getId(),
+                List.of(credential(user, "a.com"), credential(user, "b.com"), credential(user, "c.com")));
+        List<Long> upsertIds = insertedIds(3);
+        assertEquals(List.of(1L, 2L, 3L), upsertIds);
+
+        Credential saved = changeService.save(user.getId(), credential(user, "d.com"));
+        assertFalse(upsertIds.contains(saved.getId()), "entity insert reused upsert id " + saved.getId());
+        assertEquals(4L, saved.getId());
+        assertEquals(1, credentialRepo.count());
+    }
+
+    // Binds the captured upsert to a mock statement and reads back the id of each row (first of five parameters)
+    private List<Long> insertedIds(int rows) throws SQLException {
+        ArgumentCaptor<PreparedStatementSetter> setter = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate).query(anyString(), setter.capture(), any(RowCallbackHandler.class));
+        PreparedStatement statement = mock(PreparedStatement.class);
+        setter.getValue().setValues(statement);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            ArgumentCaptor<Long> id = ArgumentCaptor.forClass(Long.class);
+            verify(statement).setLong(eq(1 + 5 * i), id.capture());
+            ids.add(id.getValue());
+        }
+        return ids;
+    }
+
+    private static Credential credential(User user, String site) {
+        return Credential.builder()
+                .user(user)
+                .site(site)
+                .username("user")
+                .password(site.getBytes(StandardCharsets.UTF_8))
+                .fingerprint(site.getBytes(StandardCharsets.UTF_8))
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.securepass.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AesEncryptionUtilTest {
+
+    private static final String LEGACY_SECRET = "0123456789abcdef0123456789abcdef";
+    private static final String KEY_1_SECRET = "abcdefghijklmnopabcdefghijklmnop";
+
+    private AesEncryptionUtil aesUtil;
+    private SecretKey dataKey;
+
+    @BeforeEach
+    void setUp() {
+        aesUtil = newUtil(1);
+        dataKey = aesUtil.newDataKey();
+    }
+
+    @Test
+    void dataKeyValuesRoundTripBehindFormatByte1() {
+        for (String raw : List.of("p@ssw0rd", "", "p\u00e4ss \u5bc6\u7801 \ud83d\udd11")) {
+            byte[] encrypted = aesUtil.encrypt(raw, dataKey);
+            assertEquals(1, encrypted[0]);
+            assertTrue(aesUtil.isDataKeyEncrypted(encrypted));
+            assertEquals(raw, aesUtil.decrypt(encrypted, dataKey));
+        }
+    }
+
+    @Test
+    void batchOperationsMatchSingleValueOnes() {
+        List<String> raws = List.of("one", "two", "a much longer password than the others");
+        List<byte[]> encrypted = aesUtil.encryptAll(raws, dataKey);
+        assertEquals(raws, aesUtil.decryptAll(encrypted, dataKey));
+        assertEquals("two", aesUtil.decrypt(encrypted.get(1), dataKey));
+    }
+
+    @Test
+    void decryptsLegacyMasterKeyValuesBehindFormatByte2() throws GeneralSecurityException {
+        byte[] underKey0 = legacyValue(0, LEGACY_SECRET, "from before envelope encryption");
+        byte[] underKey1 = legacyValue(1, KEY_1_SECRET, "written under key 1");
+
+        assertFalse(aesUtil.isDataKeyEncrypted(underKey0));
+        assertEquals("from before envelope encryption", aesUtil.decrypt(underKey0, dataKey));
+        assertEquals("written under key 1", aesUtil.decrypt(underKey1, null));
+        assertEquals(List.of("from before envelope encryption", "written under key 1", "new"),
+                aesUtil.decryptAll(List.of(underKey0, underKey1, aesUtil.encrypt("new", dataKey)), dataKey));
+    }
+
+    @Test
+    void legacyValueUnderAnUnconfiguredKeyNamesTheKey() throws GeneralSecurityException {
+        byte[] underKey7 = legacyValue(7, KEY_1_SECRET, "secret");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> aesUtil.decrypt(underKey7, dataKey));
+        assertTrue(e.getMessage().contains("key 7"), e.getMessage());
+    }
+
+    @Test
+    void unparseableValuesBehindFormatByte0AreRejected() {
+        byte[] unparsed = new byte[40];
+        unparsed[0] = 0;
+        assertThrows(IllegalArgumentException.class, () -> aesUtil.decrypt(unparsed, dataKey));
+        assertThrows(IllegalArgumentException.class, () -> aesUtil.decryptAll(List.of(unparsed), dataKey));
+        assertThrows(IllegalArgumentException.class, () -> aesUtil.decrypt(new byte[0], dataKey));
+    }
+
+    @Test
+    void dataKeyValueNeedsTheDataKey() {
+        byte[] encrypted = aesUtil.encrypt("secret", dataKey);
+        assertThrows(IllegalArgumentException.class, () -> aesUtil.decrypt(encrypted, null));
+        assertThrows(RuntimeException.class, () -> aesUtil.decrypt(encrypted, aesUtil.newDataKey()));
+
+        encrypted[encrypted.length - 1] ^= 1;
+        assertThrows(RuntimeException.class, () -> aesUtil.decrypt(encrypted, dataKey));
+    }
+
+    @Test
+    void wrappedDataKeysSurviveAnActiveKeyChange() {
+        String wrapped = aesUtil.wrapKey(dataKey);
+        assertEquals(1, aesUtil.keyIdOf(wrapped));
+        assertFalse(aesUtil.needsRewrap(wrapped));
+        assertArrayEquals(dataKey.getEncoded(), aesUtil.unwrapKey(wrapped).getEncoded());
+
+        AesEncryptionUtil rotated = newUtil(0);
+        assertTrue(rotated.needsRewrap(wrapped));
+        assertArrayEquals(dataKey.getEncoded(), rotated.unwrapKey(wrapped).getEncoded());
+    }
+
+    @Test
+    void fingerprintsAreStablePerDataKeyOnly() {
+        assertArrayEquals(aesUtil.fingerprint("same", dataKey), aesUtil.fingerprint("same", dataKey));
+        assertFalse(Arrays.equals(aesUtil.fingerprint("same", dataKey), aesUtil.fingerprint("other", dataKey)));
+        assertFalse(Arrays.equals(aesUtil.fingerprint("same", dataKey),
+                aesUtil.fingerprint("same", aesUtil.newDataKey())));
+    }
+
+    private static AesEncryptionUtil newUtil(int activeKeyId) {
+        MockEnvironment environment = new MockEnvironment().withProperty("aes.keys.1", KEY_1_SECRET);
+        AesEncryptionUtil util = new AesEncryptionUtil(environment, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(util, "secretKeyString", LEGACY_SECRET);
+        ReflectionTestUtils.setField(util, "activeKeyId", activeKeyId);
+        util.init();
+        return util;
+    }
+
+    // Format byte 2, key id byte, IV, ciphertext: what the binary migration wrote for master key values
+    private static byte[] legacyValue(int keyId, String secret, String raw) throws GeneralSecurityException {
+        byte[] iv = new byte[12];
+        iv[0] = (byte) keyId;
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "AES"),
+                new GCMParameterSpec(128, iv));
+        byte[] ciphertext = cipher.doFinal(raw.getBytes(StandardCharsets.UTF_8));
+        byte[] value = new byte[2 + iv.length + ciphertext.length];
+        value[0] = 2;
+        value[1] = (byte) keyId;
+        System.arraycopy(iv, 0, value, 2, iv.length);
+        System.arraycopy(ciphertext, 0, value, 2 + iv.length, ciphertext.length);
+        return value;
+    }
+}
@@ -0,0 +1,86 @@
+package com.securepass.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterFileTest {
+
+    private static final int ENTRIES = 20_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void everyAddedDigestIsFoundAgainAfterReopening() throws IOException, NoSuchAlgorithmException {
+        Path file = dir.resolve("breached.bf");
+        BloomFilterFile built = BloomFilterFile.create(file, ENTRIES, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < ENTRIES; i++) {
+            built.put(sha1("breached-" + i));
+        }
+        built.force();
+        for (int i = 0; i < ENTRIES; i++) {
+            assertTrue(built.mightContain(sha1("breached-" + i)), "false negative before reopening: " + i);
+        }
+
+        BloomFilterFile opened = BloomFilterFile.open(file);
+        assertEquals(built.getBitCount(), opened.getBitCount());
+        assertEquals(built.getHashCount(), opened.getHashCount());
+        for (int i = 0; i < ENTRIES; i++) {
+            assertTrue(opened.mightContain(sha1("breached-" + i)), "false negative after reopening: " + i);
+        }
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() throws IOException, NoSuchAlgorithmException {
+        BloomFilterFile filter = BloomFilterFile.create(dir.resolve("breached.bf"), ENTRIES, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < ENTRIES; i++) {
+            filter.put(sha1("breached-" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < ENTRIES; i++) {
+            if (filter.mightContain(sha1("safe-" + i))) {
+                falsePositives++;
+            }
+        }
+        // Expected about 200; three times the rate leaves room for chance
+        assertTrue(falsePositives < ENTRIES * FALSE_POSITIVE_RATE * 3, falsePositives + " false positives");
+    }
+
+    @Test
+    void rejectsFilesThatAreNotFilters() throws IOException {
+        Path tooShort = Files.write(dir.resolve("short.bf"), new byte[10]);
+        assertThrows(IOException.class, () -> BloomFilterFile.open(tooShort));
+
+        Path wrongMagic = Files.write(dir.resolve("text.bf"), "not a bloom filter, just some text".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> BloomFilterFile.open(wrongMagic));
+
+        Path truncated = dir.resolve("truncated.bf");
+        BloomFilterFile.create(truncated, 1000, FALSE_POSITIVE_RATE).force();
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> BloomFilterFile.open(truncated));
+    }
+
+    @Test
+    void createRejectsImpossibleSizing() {
+        assertThrows(IllegalArgumentException.class, () -> BloomFilterFile.create(dir.resolve("a.bf"), 0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilterFile.create(dir.resolve("b.bf"), 100, 1.0));
+    }
+
+    private static byte[] sha1(String value) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
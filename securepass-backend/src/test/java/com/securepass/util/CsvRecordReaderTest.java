@@ -0,0 +1,96 @@
+package com.securepass.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void readsPlainRecordsWithAnyLineEnding() throws IOException {
+        assertEquals(List.of(List.of("site", "username", "password"), List.of("a.com", "x", "1"),
+                        List.of("b.com", "y", "2"), List.of("c.com", "z", "3")),
+                readAll("site,username,password\na.com,x,1\r\nb.com,y,2\rc.com,z,3"));
+    }
+
+    @Test
+    void keepsCommasAndEscapedQuotesInsideQuotedFields() throws IOException {
+        assertEquals(List.of(List.of("a, b", "say \"hi\"", "")),
+                readAll("\"a, b\",\"say \"\"hi\"\"\",\"\"\n"));
+    }
+
+    @Test
+    void quotedFieldsMaySpanLines() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(
+                "site,password\n\"multi\nline.com\",\"p\r\nw\"\nnext.com,x\n"));
+        assertEquals(List.of("site", "password"), reader.next());
+        assertEquals(List.of("multi\nline.com", "p\r\nw"), reader.next());
+        assertEquals(2, reader.getRecordNumber());
+        assertEquals(List.of("next.com", "x"), reader.next());
+        assertEquals(3, reader.getRecordNumber());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void skipsLeadingByteOrderMarkOnly() throws IOException {
+        assertEquals(List.of(List.of("site", "password"), List.of("\uFEFFa.com", "x")),
+                readAll("\uFEFFsite,password\n\uFEFFa.com,x\n"));
+    }
+
+    @Test
+    void skipsBlankLinesButKeepsEmptyFields() throws IOException {
+        assertEquals(List.of(List.of("a", "", ""), List.of("", "b")),
+                readAll("\n\r\na,,\n\n,b\n\n"));
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertEquals(List.of(), readAll(""));
+        assertEquals(List.of(), readAll("\uFEFF"));
+    }
+
+    @Test
+    void oversizedRecordIsFlaggedAndTheNextOneReadNormally() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(
+                "a.com,x\n" + "y".repeat(500) + ",\"" + "z".repeat(500) + "\"\nb.com,w\n1,2,3,4\n"), 10, 3);
+        assertEquals(List.of("a.com", "x"), reader.next());
+        assertFalse(reader.isOversized());
+        assertEquals(10, reader.next().get(0).length());
+        assertTrue(reader.isOversized());
+        assertEquals(List.of("b.com", "w"), reader.next());
+        assertFalse(reader.isOversized());
+        assertEquals(3, reader.getRecordNumber());
+        assertEquals(List.of("1", "2", "3"), reader.next());
+        assertTrue(reader.isOversized());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void unclosedQuoteRunsToTheEndWithoutKeepingIt() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(
+                "a.com,x\nb.com,\"never closed\n" + "c.com,y\n".repeat(1000)), 100, 3);
+        assertEquals(List.of("a.com", "x"), reader.next());
+        List<String> unclosed = reader.next();
+        assertTrue(reader.isOversized());
+        assertEquals(100, unclosed.get(1).length());
+        assertNull(reader.next());
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,114 @@
+package com.securepass.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the scanner-based {@link InputSanitizer} against the regular expressions it replaced.
+ */
+class InputSanitizerTest {
+
+    private static final Pattern SCRIPT_PATTERN = Pattern.compile(
+        "<script[^>]*>.*?</script>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL
+    );
+    private static final Pattern HTML_TAG_PATTERN = Pattern.compile("<[^>]+>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern JAVASCRIPT_PATTERN = Pattern.compile("javascript:", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ON_EVENT_PATTERN = Pattern.compile("on\\w+\\s*=", Pattern.CASE_INSENSITIVE);
+
+    // Pieces that make up, split and combine every pattern, plus characters that only look like ASCII
+    private static final String[] FRAGMENTS = {
+        "<", ">", "</", "/", "script", "SCRIPT", "ScRiPt", "<script", "</script>", "<script>", "<b>", "<>",
+        "java", "JAVA", "script:", "javascript:", "JavaScript:", ":", "on", "ON", "oN", "click", "error", "=",
+        " ", "  ", "\t", "\n", "\r", "\u000B", "\f", "\u00A0", "\u2028", "a", "Z", "_", "0", "9", "-", ".",
+        "\"", "'", "&", "\u00E9", "\u017F", "\u212A", "\u0130", "\uD83D\uDD11", "\uD83D", "\u0000"
+    };
+
+    private final InputSanitizer sanitizer = new InputSanitizer();
+
+    @Test
+    void sanitizeMatchesRegexVersionOnFuzzedInput() {
+        Random random = new Random(20261017L);
+        for (int n = 0; n < 200_000; n++) {
+            StringBuilder input = new StringBuilder();
+            int pieces = random.nextInt(12);
+            for (int i = 0; i < pieces; i++) {
+                if (random.nextInt(8) == 0) {
+                    input.append((char) random.nextInt(128));
+                } else {
+                    input.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+                }
+            }
+            String value = input.toString();
+            assertEquals(regexSanitize(value), sanitizer.sanitize(value), () -> "input: " + escape(value));
+        }
+    }
+
+    @Test
+    void sanitizeMatchesRegexVersionOnKnownCases() {
+        String[] inputs = {
+            "", " ", "github.com", "  padded  ", "<script>alert(1)</script>site", "<SCRIPT src=x>a</sCrIpT>b",
+            "<script>never closed", "<script no gt", "a<b>c</b>d", "a<>b", "a < b", "x<", "<<b>>",
+            "java<b>script:alert(1)", "javascript:javascript:", "javajavascript:script:", "o<i>nclick=x",
+            "onclick=alert(1)", "ON LOAD=x", "onload \t=x", "on=x", "onon=x", "oonerror=x", "on_1 \n=",
+            "<scr<b>ipt>x</script>", "<script>a</script><script>b</script>", "\u00A0on\u00E9=x\u00A0"
+        };
+        for (String input : inputs) {
+            assertEquals(regexSanitize(input), sanitizer.sanitize(input), () -> "input: " + escape(input));
+        }
+        assertNull(sanitizer.sanitize(null));
+    }
+
+    @Test
+    void sanitizeReturnsCleanInputUnchanged() {
+        String site = "accounts.example.com";
+        assertSame(site, sanitizer.sanitize(site));
+        String url = "https://example.com/login?next=home";
+        assertSame(url, sanitizer.sanitize(url));
+    }
+
+    @Test
+    void isValidUsernameMatchesRegexVersion() {
+        Random random = new Random(42L);
+        String alphabet = "aZ09._-@ \n\u00E9\u212A";
+        for (int n = 0; n < 50_000; n++) {
+            StringBuilder username = new StringBuilder();
+            int length = random.nextInt(56);
+            for (int i = 0; i < length; i++) {
+                username.append(random.nextInt(4) == 0
+                        ? alphabet.charAt(random.nextInt(alphabet.length()))
+                        : (char) ('a' + random.nextInt(26)));
+            }
+            String value = username.toString();
+            assertEquals(value.matches("^[a-zA-Z0-9._-]{3,50}$"), sanitizer.isValidUsername(value), value);
+        }
+        assertTrue(sanitizer.isValidUsername("john.doe-1"));
+        assertFalse(sanitizer.isValidUsername("ab"));
+        assertFalse(sanitizer.isValidUsername("valid\n"));
+        assertFalse(sanitizer.isValidUsername(null));
+    }
+
+    // The implementation before the scanner, kept as the reference
+    private static String regexSanitize(String input) {
+        String sanitized = SCRIPT_PATTERN.matcher(input).replaceAll("");
+        sanitized = HTML_TAG_PATTERN.matcher(sanitized).replaceAll("");
+        sanitized = JAVASCRIPT_PATTERN.matcher(sanitized).replaceAll("");
+        sanitized = ON_EVENT_PATTERN.matcher(sanitized).replaceAll("");
+        return sanitized.trim();
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            escaped.append(c >= 0x20 && c < 0x7F ? String.valueOf(c) : String.format("\\u%04X", (int) c));
+        }
+        return escaped.toString();
+    }
+}
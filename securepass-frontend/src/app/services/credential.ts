@@ -1,6 +1,6 @@
 // src/app/services/credential.ts
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpErrorResponse, HttpHeaders } from '@angular/common/http';
 import { BehaviorSubject, Observable, of, Subject, throwError } from 'rxjs';
 import { catchError, debounceTime, exhaustMap, map, tap } from 'rxjs/operators';
 import { environment } from '../../environments/environment';
@@ -24,7 +24,8 @@ export class CredentialService {
 
   // trigger subject used to coalesce multiple load() calls
   private loadTrigger = new Subject<{ stack?: string }>();
-  private lastEmittedKey: string | null = null;
+  // ETag of the list currently in _creds$; the backend answers 304 while the vault is unchanged
+  private etag: string | null = null;
 
 
   constructor(private http: HttpClient) {
@@ -34,32 +35,34 @@ export class CredentialService {
     this.loadTrigger.pipe(
       debounceTime(50),
       exhaustMap(() => {
-        return this.http.get<Credential[]>(this.baseUrl).pipe(
-          catchError(err => {
+        const headers = this.etag ? new HttpHeaders({ 'If-None-Match': this.etag }) : undefined;
+        return this.http.get<Credential[]>(this.baseUrl, { headers, observe: 'response' }).pipe(
+          map(response => {
+            this.etag = response.headers.get('ETag');
+            return response.body ?? [];
+          }),
+          catchError((err: HttpErrorResponse) => {
+            // 304: vault unchanged, keep the current list
+            if (err.status === 304) {
+              return of(null);
+            }
             // Silently handle errors - component will handle display
+            this.etag = null;
             return of([] as Credential[]);
           })
         );
       })
     ).subscribe((list) => {
+      if (list === null) {
+        return;
+      }
+
       // dedupe by id (keeps first occurrence)
       const map = new Map<number, Credential>();
-      for (const c of (list ?? [])) {
+      for (const c of list) {
         if (c && typeof c.id !== 'undefined') map.set(c.id, c);
       }
-      const deduped = Array.from(map.values());
-
-      // build stable key to detect identical payloads (IDs + JSON)
-      const idString = deduped.map(d => d.id).join(',');
-      const jsonString = JSON.stringify(deduped);
-      const key = `${idString}|${jsonString}`;
-
-      if (this.lastEmittedKey === key) {
-        return; // skip emitting identical payload
-      }
-
-      this.lastEmittedKey = key;
-      this._creds$.next(deduped);
+      this._creds$.next(Array.from(map.values()));
     });
   }
 